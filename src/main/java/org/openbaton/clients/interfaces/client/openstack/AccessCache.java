@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.openstack.keystone.v2_0.domain.Access;
+import org.openbaton.catalogue.nfvo.VimInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one Keystone Access per VimInstance credentials.
+ *
+ * The token is renewed in the background a configurable margin before it expires: the scheduler only triggers the
+ * renewal, the login itself runs on the executor. A caller finding the token due for renewal but not expired yet
+ * gets the current token while the renewal runs in the background. Callers only wait for a login when there is no
+ * token or it has expired, and concurrent callers wait for the same login instead of each doing their own.
+ * Credentials that were not asked for during the idle timeout are not renewed anymore.
+ */
+class AccessCache {
+
+  private static Logger log = LoggerFactory.getLogger(AccessCache.class);
+
+  /**
+   * Lifetime assumed for tokens that do not report when they expire.
+   */
+  private static final long DEFAULT_TOKEN_LIFETIME = TimeUnit.HOURS.toMillis(1);
+
+  /**
+   * Lifetime assumed for tokens that expire sooner than that by the clock of the plugin, so that a clock skew with
+   * Keystone does not turn the renewals into a loop of logins.
+   */
+  private static final long MIN_TOKEN_LIFETIME = TimeUnit.MINUTES.toMillis(1);
+
+  private final ContextRegistry contexts;
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService executor;
+  private final long refreshMargin;
+  private final long idleTimeout;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  AccessCache(ContextRegistry contexts,
+              ScheduledExecutorService scheduler,
+              ExecutorService executor,
+              long refreshMargin,
+              long idleTimeout) {
+    this.contexts = contexts;
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.refreshMargin = TimeUnit.SECONDS.toMillis(refreshMargin);
+    this.idleTimeout = TimeUnit.SECONDS.toMillis(idleTimeout);
+  }
+
+  Access get(VimInstance vimInstance) {
+    return entry(vimInstance).get();
+  }
+
+  /**
+   * Returns the service catalog of the current token of the VimInstance, indexed once per token.
+   */
+  EndpointIndex getEndpoints(VimInstance vimInstance) {
+    Entry entry = entry(vimInstance);
+    entry.get();
+    return entry.endpoints;
+  }
+
+  private Entry entry(VimInstance vimInstance) {
+    String identity = ContextRegistry.identity(vimInstance);
+    String credentialHash = ContextRegistry.credentialHash(vimInstance);
+    Entry entry = entries.get(identity);
+    if (entry == null || !entry.credentialHash.equals(credentialHash)) {
+      Entry created = new Entry(vimInstance, credentialHash);
+      if (entry == null) {
+        entry = entries.putIfAbsent(identity, created);
+        if (entry == null) {
+          entry = created;
+        }
+      } else if (entries.replace(identity, entry, created)) {
+        log.debug("Credentials of VimInstance with name: " + vimInstance.getName() + " changed, dropping its token");
+        entry.cancel();
+        entry = created;
+      } else {
+        return entry(vimInstance);
+      }
+    }
+    return entry;
+  }
+
+  private class Entry {
+    private final VimInstance vimInstance;
+    private final String credentialHash;
+    private volatile Access access;
+    private volatile EndpointIndex endpoints;
+    private volatile long renewAt;
+    private volatile long expiresAt;
+    private volatile long lastUsed = System.currentTimeMillis();
+    private SettableFuture<Access> inFlight;
+    private ScheduledFuture<?> scheduledRefresh;
+    private boolean cancelled;
+
+    private Entry(VimInstance vimInstance, String credentialHash) {
+      this.vimInstance = vimInstance;
+      this.credentialHash = credentialHash;
+    }
+
+    private Access get() {
+      lastUsed = System.currentTimeMillis();
+      Access current = access;
+      long now = System.currentTimeMillis();
+      if (current != null && now < renewAt) {
+        return current;
+      }
+      if (current != null && now < expiresAt) {
+        refreshInBackground();
+        return current;
+      }
+      try {
+        return refresh().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for a Keystone token", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new UncheckedExecutionException(e.getCause());
+      }
+    }
+
+    /**
+     * Starts a login on the executor, unless one is already running.
+     */
+    private void refreshInBackground() {
+      synchronized (this) {
+        if (inFlight != null) {
+          return;
+        }
+      }
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            refresh().get();
+          } catch (Exception e) {
+            log.warn("Not able to renew Keystone token of VimInstance with name: " +
+                     vimInstance.getName() +
+                     ": " +
+                     e.getMessage());
+          }
+        }
+      });
+    }
+
+    /**
+     * Starts a login, or returns the one that is already running.
+     */
+    private SettableFuture<Access> refresh() {
+      SettableFuture<Access> future;
+      synchronized (this) {
+        if (inFlight != null) {
+          return inFlight;
+        }
+        inFlight = SettableFuture.create();
+        future = inFlight;
+      }
+      try {
+        Access renewed = login();
+        EndpointIndex renewedEndpoints = new EndpointIndex(renewed);
+        Date tokenExpires = renewed.getToken() == null ? null : renewed.getToken().getExpires();
+        long now = System.currentTimeMillis();
+        long lifetime = tokenExpires == null ? DEFAULT_TOKEN_LIFETIME : tokenExpires.getTime() - now;
+        if (lifetime < MIN_TOKEN_LIFETIME) {
+          log.warn("Keystone token of VimInstance with name: " +
+                   vimInstance.getName() +
+                   " expires in " +
+                   lifetime +
+                   " milliseconds, the clocks of the plugin and of Keystone may be skewed");
+          lifetime = MIN_TOKEN_LIFETIME;
+        }
+        synchronized (this) {
+          endpoints = renewedEndpoints;
+          access = renewed;
+          expiresAt = now + lifetime;
+          renewAt = now + lifetime - Math.min(refreshMargin, lifetime / 2);
+          inFlight = null;
+          scheduleRefresh(renewAt);
+        }
+        future.set(renewed);
+      } catch (RuntimeException e) {
+        synchronized (this) {
+          inFlight = null;
+        }
+        future.setException(e);
+      }
+      return future;
+    }
+
+    private Access login() {
+      log.debug("Requesting a Keystone token for VimInstance with name: " + vimInstance.getName());
+      Function<Credentials, Access>
+          auth =
+          contexts.getComputeContext(vimInstance)
+                  .utils()
+                  .injector()
+                  .getInstance(Key.get(new TypeLiteral<Function<Credentials, Access>>() {
+                  }));
+      return auth.apply(new Credentials.Builder<Credentials>().identity(vimInstance.getTenant() +
+                                                                        ":" +
+                                                                        vimInstance.getUsername())
+                                                              .credential(vimInstance.getPassword())
+                                                              .build());
+    }
+
+    private void scheduleRefresh(long refreshAt) {
+      if (cancelled) {
+        return;
+      }
+      long delay = Math.max(0, refreshAt - System.currentTimeMillis());
+      final Runnable renew = new Runnable() {
+        @Override
+        public void run() {
+          if (System.currentTimeMillis() - lastUsed > idleTimeout) {
+            log.debug("Token of VimInstance with name: " + vimInstance.getName() + " unused, not renewing it");
+            entries.remove(ContextRegistry.identity(vimInstance), Entry.this);
+            return;
+          }
+          try {
+            refresh().get();
+            log.debug("Renewed Keystone token of VimInstance with name: " + vimInstance.getName());
+          } catch (Exception e) {
+            log.warn("Not able to renew Keystone token of VimInstance with name: " +
+                     vimInstance.getName() +
+                     ": " +
+                     e.getMessage());
+          }
+        }
+      };
+      scheduledRefresh = scheduler.schedule(new Runnable() {
+        @Override
+        public void run() {
+          executor.execute(renew);
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancel() {
+      cancelled = true;
+      if (scheduledRefresh != null) {
+        scheduledRefresh.cancel(false);
+      }
+    }
+  }
+}
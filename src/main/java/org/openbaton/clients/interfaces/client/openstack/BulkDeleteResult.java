@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import org.openbaton.exceptions.VimDriverException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a bulk delete: the ids of the VMs that are gone and, for every VM that is not, why.
+ */
+public class BulkDeleteResult {
+
+  private final List<String> deleted = new ArrayList<>();
+  private final Map<String, VimDriverException> failures = new LinkedHashMap<>();
+
+  void addDeleted(String extId) {
+    deleted.add(extId);
+  }
+
+  void addFailure(String extId, VimDriverException failure) {
+    failures.put(extId, failure);
+  }
+
+  public List<String> getDeleted() {
+    return deleted;
+  }
+
+  /**
+   * Returns the exception of every VM that could not be deleted, by id.
+   */
+  public Map<String, VimDriverException> getFailures() {
+    return failures;
+  }
+
+  public boolean isComplete() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "BulkDeleteResult{" +
+           "deleted=" + deleted +
+           ", failures=" + failures.keySet() +
+           '}';
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import org.openbaton.catalogue.nfvo.Server;
+import org.openbaton.exceptions.VimDriverException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a bulk launch: the VMs that became ACTIVE and, for every VM that did not, the exception carrying it.
+ */
+public class BulkLaunchResult {
+
+  private final List<Server> servers = new ArrayList<>();
+  private final List<VimDriverException> failures = new ArrayList<>();
+
+  void addServer(Server server) {
+    servers.add(server);
+  }
+
+  void addFailure(Server server, VimDriverException failure) {
+    failure.setServer(server);
+    failures.add(failure);
+  }
+
+  public List<Server> getServers() {
+    return servers;
+  }
+
+  /**
+   * Returns one exception per VM that failed to launch, with the VM set as its server.
+   */
+  public List<VimDriverException> getFailures() {
+    return failures;
+  }
+
+  public boolean isComplete() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "BulkLaunchResult{" +
+           "servers=" + servers +
+           ", failures=" + failures +
+           '}';
+  }
+}
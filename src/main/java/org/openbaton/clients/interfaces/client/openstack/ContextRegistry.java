@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Module;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.openstack.glance.v1_0.GlanceApi;
+import org.jclouds.openstack.neutron.v2.NeutronApi;
+import org.jclouds.openstack.nova.v2_0.NovaApi;
+import org.openbaton.catalogue.nfvo.VimInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out jclouds apis that are shared between all the calls done with the same credentials on a VimInstance.
+ *
+ * Building an api creates a new Guice injector, http stack and Keystone login, so they are built once per (auth url,
+ * tenant, username, credential) and closed when they were not used for the idle timeout or when the credential of the
+ * VimInstance changes.
+ */
+class ContextRegistry {
+
+  private static Logger log = LoggerFactory.getLogger(ContextRegistry.class);
+
+  private final Iterable<Module> modules;
+  private final Properties overrides;
+  private final Cache<ContextKey, Closeable> contexts;
+  private final ConcurrentMap<String, String> credentialHashes = new ConcurrentHashMap<>();
+
+  ContextRegistry(Iterable<Module> modules, Properties overrides, long idleTimeout) {
+    this.modules = modules;
+    this.overrides = overrides;
+    this.contexts =
+        CacheBuilder.newBuilder()
+                    .expireAfterAccess(idleTimeout, TimeUnit.SECONDS)
+                    .removalListener(new RemovalListener<ContextKey, Closeable>() {
+                      @Override
+                      public void onRemoval(RemovalNotification<ContextKey, Closeable> notification) {
+                        close(notification.getKey(), notification.getValue());
+                      }
+                    })
+                    .build();
+  }
+
+  NovaApi getNovaApi(VimInstance vimInstance) {
+    return get(vimInstance, "openstack-nova", NovaApi.class);
+  }
+
+  NeutronApi getNeutronApi(VimInstance vimInstance) {
+    return get(vimInstance, "openstack-neutron", NeutronApi.class);
+  }
+
+  GlanceApi getGlanceApi(VimInstance vimInstance) {
+    return get(vimInstance, "openstack-glance", GlanceApi.class);
+  }
+
+  /**
+   * The compute view is only used for its injector, which provides the Keystone authentication function.
+   */
+  ComputeServiceContext getComputeContext(final VimInstance vimInstance) {
+    return get(vimInstance, "openstack-nova-compute", ComputeServiceContext.class, new Callable<Closeable>() {
+      @Override
+      public Closeable call() throws Exception {
+        log.debug("Building compute context for VimInstance with name: " + vimInstance.getName());
+        return builder(vimInstance, "openstack-nova").buildView(ComputeServiceContext.class);
+      }
+    });
+  }
+
+  private <A extends Closeable> A get(final VimInstance vimInstance, final String provider, final Class<A> apiType) {
+    return get(vimInstance, provider, apiType, new Callable<Closeable>() {
+      @Override
+      public Closeable call() throws Exception {
+        log.debug("Building " + provider + " context for VimInstance with name: " + vimInstance.getName());
+        return builder(vimInstance, provider).buildApi(apiType);
+      }
+    });
+  }
+
+  private <A extends Closeable> A get(VimInstance vimInstance,
+                                      String provider,
+                                      Class<A> type,
+                                      Callable<Closeable> factory) {
+    ContextKey key = new ContextKey(identity(vimInstance), credentialHash(vimInstance), provider);
+    String previousHash = credentialHashes.put(key.identity, key.credentialHash);
+    if (previousHash != null && !previousHash.equals(key.credentialHash)) {
+      log.debug("Credentials of VimInstance with name: " + vimInstance.getName() + " changed, closing its contexts");
+      for (ContextKey existing : contexts.asMap().keySet()) {
+        if (existing.identity.equals(key.identity) && !existing.credentialHash.equals(key.credentialHash)) {
+          contexts.invalidate(existing);
+        }
+      }
+    }
+    try {
+      return type.cast(contexts.get(key, factory));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private ContextBuilder builder(VimInstance vimInstance, String provider) {
+    return ContextBuilder.newBuilder(provider)
+                         .endpoint(vimInstance.getAuthUrl())
+                         .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
+                                      vimInstance.getPassword())
+                         .modules(modules)
+                         .overrides(overrides);
+  }
+
+  private void close(ContextKey key, Closeable api) {
+    if (api == null) {
+      return;
+    }
+    log.debug("Closing " + key.provider + " context of " + key.identity);
+    try {
+      api.close();
+    } catch (IOException e) {
+      log.warn("Not able to close " + key.provider + " context of " + key.identity + ": " + e.getMessage());
+    }
+  }
+
+  static String identity(VimInstance vimInstance) {
+    return vimInstance.getAuthUrl() + "|" + vimInstance.getTenant() + "|" + vimInstance.getUsername();
+  }
+
+  static String credentialHash(VimInstance vimInstance) {
+    String password = vimInstance.getPassword() == null ? "" : vimInstance.getPassword();
+    return Hashing.sha256().hashString(password, Charsets.UTF_8).toString();
+  }
+
+  private static class ContextKey {
+    private final String identity;
+    private final String credentialHash;
+    private final String provider;
+
+    private ContextKey(String identity, String credentialHash, String provider) {
+      this.identity = identity;
+      this.credentialHash = credentialHash;
+      this.provider = provider;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ContextKey)) {
+        return false;
+      }
+      ContextKey that = (ContextKey) o;
+      return identity.equals(that.identity) &&
+             credentialHash.equals(that.credentialHash) &&
+             provider.equals(that.provider);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(identity, credentialHash, provider);
+    }
+  }
+}
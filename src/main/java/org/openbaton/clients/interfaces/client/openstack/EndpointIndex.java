@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import org.jclouds.openstack.keystone.v2_0.domain.Access;
+import org.jclouds.openstack.keystone.v2_0.domain.Endpoint;
+import org.jclouds.openstack.keystone.v2_0.domain.Service;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Endpoints of the service catalog of an Access, indexed by (service, region, interface).
+ *
+ * Services are indexed both by type and by name, since not every deployment fills in the type. Every endpoint is also
+ * indexed without region, so that a lookup for a region the catalog does not know falls back to the first endpoint
+ * of the service.
+ */
+class EndpointIndex {
+
+  static final String PUBLIC = "public";
+  static final String INTERNAL = "internal";
+  static final String ADMIN = "admin";
+
+  private final Map<String, URI> endpoints = new HashMap<>();
+
+  EndpointIndex(Access access) {
+    for (Service service : access) {
+      for (Endpoint endpoint : service) {
+        for (String serviceKey : new String[] {service.getType(), service.getName()}) {
+          if (serviceKey == null) {
+            continue;
+          }
+          put(serviceKey, endpoint.getRegion(), PUBLIC, endpoint.getPublicURL());
+          put(serviceKey, endpoint.getRegion(), INTERNAL, endpoint.getInternalURL());
+          put(serviceKey, endpoint.getRegion(), ADMIN, endpoint.getAdminURL());
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the endpoint of the service with the given type (or, if there is none, name) in the region, or of any
+   * region when the region has none. Returns null if the catalog does not contain the service.
+   */
+  URI get(String type, String name, String region, String endpointInterface) {
+    URI endpoint = endpoints.get(key(type, region, endpointInterface));
+    if (endpoint == null) {
+      endpoint = endpoints.get(key(name, region, endpointInterface));
+    }
+    if (endpoint == null) {
+      endpoint = endpoints.get(key(type, null, endpointInterface));
+    }
+    if (endpoint == null) {
+      endpoint = endpoints.get(key(name, null, endpointInterface));
+    }
+    return endpoint;
+  }
+
+  private void put(String service, String region, String endpointInterface, URI url) {
+    if (url == null) {
+      return;
+    }
+    if (region != null && !endpoints.containsKey(key(service, region, endpointInterface))) {
+      endpoints.put(key(service, region, endpointInterface), url);
+    }
+    if (!endpoints.containsKey(key(service, null, endpointInterface))) {
+      endpoints.put(key(service, null, endpointInterface), url);
+    }
+  }
+
+  private static String key(String service, String region, String endpointInterface) {
+    return service + "|" + (region == null ? "" : region) + "|" + endpointInterface;
+  }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import org.openbaton.catalogue.nfvo.VimInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Floating ips of a VimInstance and pool that are allocated to the tenant but not assigned to any VM, ready to be
+ * handed out to launches.
+ *
+ * The reservoir starts from the free ips of the tenant and keeps an index of them, reconciled in the background with
+ * the free ips listed by the cloud. Every ip is handed out as a lease: nobody else gets it until the lease is
+ * cancelled or expires and a later refresh finds the ip still free. Whenever it drops below the low
+ * watermark it allocates ips from the pool in the background up to the high watermark. A periodic trim releases the
+ * ips it allocated itself above the high watermark, and down to the low watermark when nobody took an ip since the
+ * previous trim.
+ *
+ * The cloud is called with the VimInstance of the latest caller. A reservoir nobody used during the idle timeout
+ * releases the ips it allocated and stops its background tasks.
+ */
+abstract class FloatingIpReservoir {
+
+  private static Logger log = LoggerFactory.getLogger(FloatingIpReservoir.class);
+
+  private final String name;
+  private final ExecutorService executor;
+  private final int low;
+  private final int high;
+  private final long leaseTimeout;
+  private final long idleTimeout;
+  private final ScheduledFuture<?> trimTask;
+  private final ScheduledFuture<?> refreshTask;
+  private final Deque<String> free = new ArrayDeque<>();
+  private final Set<String> allocated = new HashSet<>();
+  private final Map<String, Lease> leased = new HashMap<>();
+  private final AtomicBoolean refilling = new AtomicBoolean();
+  private Set<String> touched;
+  private boolean seeded;
+  private boolean taken;
+  private boolean closed;
+  private volatile VimInstance vimInstance;
+  private volatile long lastUsed = System.currentTimeMillis();
+
+  /**
+   * @param trimInterval seconds between two trims
+   * @param refreshInterval seconds between two reconciliations of the index with the cloud
+   * @param leaseTimeout milliseconds a taken ip is reserved for before a refresh may hand it out again
+   * @param idleTimeout milliseconds without any use after which the reservoir is closed
+   */
+  FloatingIpReservoir(String name,
+                      VimInstance vimInstance,
+                      ScheduledExecutorService scheduler,
+                      ExecutorService executor,
+                      int low,
+                      int high,
+                      long trimInterval,
+                      long refreshInterval,
+                      long leaseTimeout,
+                      long idleTimeout) {
+    this.name = name;
+    this.vimInstance = vimInstance;
+    this.executor = executor;
+    this.low = low;
+    this.high = Math.max(low, high);
+    this.leaseTimeout = leaseTimeout;
+    this.idleTimeout = idleTimeout;
+    trimTask = scheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        FloatingIpReservoir.this.executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            trim();
+          }
+        });
+      }
+    }, trimInterval, trimInterval, TimeUnit.SECONDS);
+    refreshTask = scheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        FloatingIpReservoir.this.executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            refresh();
+          }
+        });
+      }
+    }, refreshInterval, refreshInterval, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Lists the ips allocated to the tenant and not assigned to any VM.
+   */
+  protected abstract List<String> listFree(VimInstance vimInstance) throws Exception;
+
+  /**
+   * Allocates up to count ips from the pool, returning fewer of them if the pool is exhausted.
+   */
+  protected abstract List<String> allocate(VimInstance vimInstance, int count) throws Exception;
+
+  /**
+   * Gives an ip back to the pool.
+   */
+  protected abstract void release(VimInstance vimInstance, String ip) throws Exception;
+
+  /**
+   * Called once the reservoir is closed, so that it is not handed out anymore.
+   */
+  protected void closed() {
+  }
+
+  /**
+   * Returns a lease on a free ip that nobody else will get from the reservoir, allocating one right away if the
+   * reservoir is empty, or null if the pool is exhausted. The cloud is called without holding the lock of the
+   * reservoir.
+   */
+  Lease take(VimInstance vimInstance) throws Exception {
+    use(vimInstance);
+    boolean seed;
+    synchronized (this) {
+      taken = true;
+      seed = !seeded;
+    }
+    if (seed) {
+      seed(vimInstance);
+    }
+    Lease lease;
+    synchronized (this) {
+      String ip = free.poll();
+      lease = ip == null ? null : lease(ip);
+    }
+    if (lease == null) {
+      List<String> allocatedNow = allocate(vimInstance, 1);
+      synchronized (this) {
+        if (!allocatedNow.isEmpty()) {
+          lease = lease(allocatedNow.get(0));
+        }
+        if (!closed) {
+          allocated.addAll(allocatedNow);
+          free.addAll(allocatedNow.subList(Math.min(1, allocatedNow.size()), allocatedNow.size()));
+        }
+      }
+    }
+    refillIfLow();
+    return lease;
+  }
+
+  /**
+   * Hands out a free ip. Called holding the lock of the reservoir.
+   */
+  private Lease lease(String ip) {
+    Lease lease = new Lease(ip, System.currentTimeMillis() + leaseTimeout);
+    leased.put(ip, lease);
+    touch(ip);
+    return lease;
+  }
+
+  /**
+   * Forgets an ip that was assigned without going through the reservoir.
+   */
+  synchronized void remove(VimInstance vimInstance, String ip) {
+    use(vimInstance);
+    free.remove(ip);
+    allocated.remove(ip);
+    touch(ip);
+  }
+
+  synchronized int size() {
+    return free.size();
+  }
+
+  synchronized boolean isClosed() {
+    return closed;
+  }
+
+  private void use(VimInstance vimInstance) {
+    this.vimInstance = vimInstance;
+    lastUsed = System.currentTimeMillis();
+  }
+
+  /**
+   * Fills the index with the free ips listed by the cloud. Concurrent seeds only add each ip once.
+   */
+  private void seed(VimInstance vimInstance) throws Exception {
+    List<String> listed = listFree(vimInstance);
+    synchronized (this) {
+      if (seeded) {
+        return;
+      }
+      for (String ip : listed) {
+        if (!free.contains(ip) && !leased.containsKey(ip)) {
+          free.add(ip);
+        }
+      }
+      seeded = true;
+      log.debug("Seeded the floating ip reservoir of " + name + " with " + free);
+    }
+  }
+
+  /**
+   * Reconciles the index with the free ips listed by the cloud: the ips not free anymore are dropped, and the ones
+   * that became free, expired leases included, are added. Ips taken or removed while listing are left alone.
+   */
+  private void refresh() {
+    if (closeIfIdle()) {
+      return;
+    }
+    Set<String> known;
+    synchronized (this) {
+      if (!seeded || touched != null) {
+        return;
+      }
+      known = new HashSet<>(free);
+      touched = new HashSet<>();
+    }
+    List<String> listed;
+    try {
+      listed = listFree(vimInstance);
+    } catch (Exception e) {
+      log.warn("Not able to refresh the floating ip reservoir of " + name + ": " + e.getMessage());
+      synchronized (this) {
+        touched = null;
+      }
+      return;
+    }
+    synchronized (this) {
+      long now = System.currentTimeMillis();
+      for (Iterator<Lease> it = leased.values().iterator(); it.hasNext(); ) {
+        if (it.next().expires <= now) {
+          it.remove();
+        }
+      }
+      Set<String> stillFree = new HashSet<>(listed);
+      for (String ip : known) {
+        if (!stillFree.contains(ip) && free.remove(ip)) {
+          allocated.remove(ip);
+        }
+      }
+      for (String ip : listed) {
+        if (!free.contains(ip) && !leased.containsKey(ip) && !touched.contains(ip)) {
+          free.add(ip);
+        }
+      }
+      touched = null;
+      log.trace("Refreshed the floating ip reservoir of " + name + ": " + free);
+    }
+  }
+
+  /**
+   * Marks an ip as handed out or assigned while a refresh is listing. Called holding the lock of the reservoir.
+   */
+  private void touch(String ip) {
+    if (touched != null) {
+      touched.add(ip);
+    }
+  }
+
+  private void refillIfLow() {
+    synchronized (this) {
+      if (closed || free.size() >= low) {
+        return;
+      }
+    }
+    if (!refilling.compareAndSet(false, true)) {
+      return;
+    }
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          int missing;
+          synchronized (FloatingIpReservoir.this) {
+            missing = high - free.size();
+          }
+          if (missing > 0) {
+            List<String> allocatedNow = allocate(vimInstance, missing);
+            boolean kept;
+            synchronized (FloatingIpReservoir.this) {
+              kept = !closed;
+              if (kept) {
+                allocated.addAll(allocatedNow);
+                free.addAll(allocatedNow);
+              }
+            }
+            if (kept) {
+              log.debug("Refilled the floating ip reservoir of " + name + " with " + allocatedNow);
+            } else {
+              // a reservoir closed while allocating gives the ips back right away
+              releaseAll(allocatedNow);
+            }
+          }
+        } catch (Exception e) {
+          log.warn("Not able to refill the floating ip reservoir of " + name + ": " + e.getMessage());
+        } finally {
+          refilling.set(false);
+        }
+      }
+    });
+  }
+
+  private void trim() {
+    if (closeIfIdle()) {
+      return;
+    }
+    List<String> released = new ArrayList<>();
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      int keep = taken ? high : low;
+      taken = false;
+      for (String ip : new ArrayList<>(free)) {
+        if (free.size() <= keep) {
+          break;
+        }
+        if (allocated.remove(ip)) {
+          free.remove(ip);
+          released.add(ip);
+        }
+      }
+    }
+    releaseAll(released);
+    if (!released.isEmpty()) {
+      log.debug("Trimmed the floating ip reservoir of " + name + " releasing " + released);
+    }
+  }
+
+  /**
+   * Releases the free ips the reservoir allocated itself and cancels its background tasks.
+   */
+  void close() {
+    close(false);
+  }
+
+  private boolean closeIfIdle() {
+    return close(true);
+  }
+
+  /**
+   * Closes the reservoir, if onlyIfIdle only when nobody used it during the idle timeout and no lease is pending.
+   * Returns whether the reservoir is closed.
+   */
+  private boolean close(boolean onlyIfIdle) {
+    List<String> released = new ArrayList<>();
+    synchronized (this) {
+      if (closed) {
+        return true;
+      }
+      if (onlyIfIdle && (System.currentTimeMillis() - lastUsed <= idleTimeout || !leased.isEmpty())) {
+        return false;
+      }
+      closed = true;
+      for (String ip : free) {
+        if (allocated.remove(ip)) {
+          released.add(ip);
+        }
+      }
+      free.clear();
+    }
+    trimTask.cancel(false);
+    refreshTask.cancel(false);
+    closed();
+    releaseAll(released);
+    log.debug("Closed the floating ip reservoir of " + name + " releasing " + released);
+    return true;
+  }
+
+  private void releaseAll(List<String> ips) {
+    for (String ip : ips) {
+      try {
+        release(vimInstance, ip);
+      } catch (Exception e) {
+        log.warn("Not able to release floating ip " + ip + " of " + name + ": " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * A free ip reserved to one caller until it confirms it was assigned, cancels it, or the lease expires.
+   */
+  class Lease {
+    private final String ip;
+    private final long expires;
+
+    private Lease(String ip, long expires) {
+      this.ip = ip;
+      this.expires = expires;
+    }
+
+    String getIp() {
+      return ip;
+    }
+
+    /**
+     * Ends the lease of an ip that is now assigned to a VM.
+     */
+    void confirm() {
+      synchronized (FloatingIpReservoir.this) {
+        if (leased.get(ip) == this) {
+          leased.remove(ip);
+        }
+        free.remove(ip);
+        allocated.remove(ip);
+        touch(ip);
+      }
+    }
+
+    /**
+     * Ends the lease of an ip that could not be assigned. The ip is not handed out again right away, since it may be
+     * the reason the assignment failed: the next refresh adds it back if the cloud still lists it as free.
+     */
+    void cancel() {
+      synchronized (FloatingIpReservoir.this) {
+        if (leased.get(ip) == this) {
+          leased.remove(ip);
+        }
+      }
+    }
+  }
+}
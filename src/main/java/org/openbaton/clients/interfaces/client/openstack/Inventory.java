@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local snapshot of the resources of one kind of a VimInstance, kept up to date by incremental syncs.
+ *
+ * Callers synchronize on the inventory for the whole sync, so that two syncs of the same VimInstance do not apply
+ * the same changes twice.
+ */
+abstract class Inventory<T> {
+
+  private final Map<String, T> items = new LinkedHashMap<>();
+  private Date lastSync;
+
+  protected abstract String idOf(T item);
+
+  protected abstract Date updatedOf(T item);
+
+  /**
+   * Returns when the previous sync started, or null if there was none yet.
+   */
+  Date getLastSync() {
+    return lastSync;
+  }
+
+  /**
+   * Applies a listing to the snapshot.
+   *
+   * When full, the listing contains all the resources and the ones missing from it are reported as deleted.
+   * Otherwise it contains only the resources changed since the last sync. The ids in deletedIds are read after
+   * iterating the listing, so the listing may fill them in while it is consumed.
+   *
+   * @param syncStart when the listing was requested, used as the changes-since of the next sync
+   */
+  InventoryChanges<T> update(Date syncStart, boolean full, Iterator<T> listing, Collection<String> deletedIds) {
+    List<T> added = new ArrayList<>();
+    List<T> changed = new ArrayList<>();
+    List<T> deleted = new ArrayList<>();
+    Set<String> listed = new HashSet<>();
+    while (listing.hasNext()) {
+      T item = listing.next();
+      String id = idOf(item);
+      listed.add(id);
+      T previous = items.put(id, item);
+      if (previous == null) {
+        added.add(item);
+      } else if (updatedOf(item) == null || !updatedOf(item).equals(updatedOf(previous))) {
+        changed.add(item);
+      }
+    }
+    for (String id : deletedIds) {
+      T previous = items.remove(id);
+      if (previous != null) {
+        deleted.add(previous);
+      }
+    }
+    if (full) {
+      Iterator<Map.Entry<String, T>> entries = items.entrySet().iterator();
+      while (entries.hasNext()) {
+        Map.Entry<String, T> entry = entries.next();
+        if (!listed.contains(entry.getKey())) {
+          deleted.add(entry.getValue());
+          entries.remove();
+        }
+      }
+    }
+    lastSync = syncStart;
+    return new InventoryChanges<>(added,
+                                  changed,
+                                  deleted,
+                                  Collections.unmodifiableCollection(new ArrayList<>(items.values())));
+  }
+}
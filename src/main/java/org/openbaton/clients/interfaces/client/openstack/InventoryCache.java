@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.openbaton.catalogue.nfvo.VimInstance;
+import org.openbaton.exceptions.VimDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of the images, flavors and networks of the VimInstances.
+ *
+ * Every kind has its own bounded cache and time to live. Entries are keyed by the credentials of the VimInstance, so
+ * a changed password never gets the listing of the old one, and the mutations done through the driver invalidate
+ * all the entries of their kind for the VimInstance.
+ */
+class InventoryCache {
+
+  static final String IMAGES = "images";
+  static final String FLAVORS = "flavors";
+  static final String NETWORKS = "networks";
+
+  private static final String LIST = "*";
+
+  private static Logger log = LoggerFactory.getLogger(InventoryCache.class);
+
+  private final Map<String, Cache<String, Object>> caches = new HashMap<>();
+
+  /**
+   * @param ttls the time to live in seconds of every kind; a kind with a ttl of 0 is not cached
+   */
+  InventoryCache(long maximumSize, Map<String, Long> ttls) {
+    for (Map.Entry<String, Long> ttl : ttls.entrySet()) {
+      caches.put(ttl.getKey(),
+                 CacheBuilder.newBuilder()
+                             .maximumSize(ttl.getValue() > 0 ? maximumSize : 0)
+                             .expireAfterWrite(ttl.getValue(), TimeUnit.SECONDS)
+                             .recordStats()
+                             .<String, Object>build());
+    }
+  }
+
+  /**
+   * Returns a copy of the cached listing of the kind, loading it if it is not cached.
+   */
+  @SuppressWarnings("unchecked")
+  <T> List<T> getList(String kind, VimInstance vimInstance, Callable<List<T>> loader) throws VimDriverException {
+    return new ArrayList<>((List<T>) get(kind, key(vimInstance, LIST), loader));
+  }
+
+  /**
+   * Returns the cached element of the kind with the extId, loading it if it is not cached.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T get(String kind, VimInstance vimInstance, String extId, Callable<T> loader) throws VimDriverException {
+    return (T) get(kind, key(vimInstance, extId), loader);
+  }
+
+  /**
+   * Drops the listing and all the elements of the kind cached for the VimInstance.
+   */
+  void invalidate(String kind, VimInstance vimInstance) {
+    String prefix = ContextRegistry.identity(vimInstance) + "|";
+    Cache<String, Object> cache = caches.get(kind);
+    for (String key : cache.asMap().keySet()) {
+      if (key.startsWith(prefix)) {
+        cache.invalidate(key);
+      }
+    }
+    log.debug("Invalidated cached " + kind + " of VimInstance with name: " + vimInstance.getName());
+  }
+
+  Map<String, CacheStats> stats() {
+    Map<String, CacheStats> stats = new HashMap<>();
+    for (Map.Entry<String, Cache<String, Object>> cache : caches.entrySet()) {
+      stats.put(cache.getKey(), cache.getValue().stats());
+    }
+    return stats;
+  }
+
+  private Object get(String kind, String key, Callable<?> loader) throws VimDriverException {
+    try {
+      return caches.get(kind).get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof VimDriverException) {
+        throw (VimDriverException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new VimDriverException(e.getCause().getMessage());
+    }
+  }
+
+  private static String key(VimInstance vimInstance, String extId) {
+    return ContextRegistry.identity(vimInstance) + "|" + ContextRegistry.credentialHash(vimInstance) + "|" + extId;
+  }
+}
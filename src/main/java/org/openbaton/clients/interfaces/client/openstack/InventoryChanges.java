@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Result of an incremental sync: the resources added, changed and deleted since the previous sync of the
+ * VimInstance, and the snapshot of all its resources after applying them.
+ */
+public class InventoryChanges<T> {
+
+  private final List<T> added;
+  private final List<T> changed;
+  private final List<T> deleted;
+  private final Collection<T> snapshot;
+
+  InventoryChanges(List<T> added, List<T> changed, List<T> deleted, Collection<T> snapshot) {
+    this.added = added;
+    this.changed = changed;
+    this.deleted = deleted;
+    this.snapshot = snapshot;
+  }
+
+  public List<T> getAdded() {
+    return added;
+  }
+
+  public List<T> getChanged() {
+    return changed;
+  }
+
+  public List<T> getDeleted() {
+    return deleted;
+  }
+
+  public Collection<T> getSnapshot() {
+    return snapshot;
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && changed.isEmpty() && deleted.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "InventoryChanges{" +
+           "added=" + added +
+           ", changed=" + changed +
+           ", deleted=" + deleted +
+           ", snapshot size=" + snapshot.size() +
+           '}';
+  }
+}
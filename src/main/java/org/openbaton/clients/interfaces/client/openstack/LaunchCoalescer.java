@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.openbaton.catalogue.nfvo.VimInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the concurrent launches of a VimInstance that only differ by the name of the VM into multi-instance creates.
+ *
+ * Nova names the VMs of a multi-instance create, and sets their hostnames, "name-1" to "name-N", so only launches of
+ * VMs named after the same base name followed by their index are grouped. The first launch of a group opens a batch
+ * that stays open for the window; every compatible launch arriving in the meanwhile joins it. The batch is created
+ * when the window ends or when it reaches the maximum size, and every caller gets the id of its own VM. A batch whose
+ * indexes are not exactly 1 to N, and a launch of a VM named otherwise, are created one VM at a time so that every VM
+ * gets its hostname at creation.
+ */
+abstract class LaunchCoalescer {
+
+  private static Logger log = LoggerFactory.getLogger(LaunchCoalescer.class);
+
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService executor;
+  private final long window;
+  private final int maxBatch;
+  private final Map<String, Batch> open = new HashMap<>();
+
+  /**
+   * @param window milliseconds a batch waits for compatible launches
+   */
+  LaunchCoalescer(ScheduledExecutorService scheduler, ExecutorService executor, long window, int maxBatch) {
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.window = window;
+    this.maxBatch = maxBatch;
+  }
+
+  /**
+   * Creates count VMs named after the base name followed by their index, starting from 1, and returns their ids by
+   * index.
+   */
+  protected abstract List<String> create(Launch launch, String baseName, int count) throws Exception;
+
+  /**
+   * Creates a single VM with the given name and returns its id.
+   */
+  protected abstract String create(Launch launch, String name) throws Exception;
+
+  /**
+   * Returns a future completed with the id of the VM once the batch the launch joined is created.
+   */
+  synchronized ListenableFuture<String> submit(final Launch launch, final String name) {
+    final SettableFuture<String> future = SettableFuture.create();
+    String baseName = baseName(name);
+    if (baseName == null) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          createOne(launch, name, future);
+        }
+      });
+      return future;
+    }
+    final String key = launch.key() + "|" + baseName;
+    Batch batch = open.get(key);
+    if (batch == null) {
+      final Batch created = new Batch(key, launch, baseName);
+      open.put(key, created);
+      scheduler.schedule(new Runnable() {
+        @Override
+        public void run() {
+          executor.execute(new Runnable() {
+            @Override
+            public void run() {
+              flush(created);
+            }
+          });
+        }
+      }, window, TimeUnit.MILLISECONDS);
+      batch = created;
+    }
+    batch.names.add(name);
+    batch.futures.add(future);
+    if (batch.names.size() >= maxBatch) {
+      final Batch full = batch;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          flush(full);
+        }
+      });
+      open.remove(key);
+    }
+    return future;
+  }
+
+  private void flush(final Batch batch) {
+    synchronized (this) {
+      if (batch.flushed) {
+        return;
+      }
+      batch.flushed = true;
+      if (open.get(batch.key) == batch) {
+        open.remove(batch.key);
+      }
+    }
+    int count = batch.names.size();
+    Set<Integer> indexes = new TreeSet<>();
+    for (String name : batch.names) {
+      indexes.add(indexOf(name, batch.baseName));
+    }
+    if (count == 1 || indexes.size() != count || indexes.iterator().next() != 1 || !indexes.contains(count)) {
+      log.debug("Launching the VMs " + batch.names + " one at a time");
+      for (int i = 0; i < count; i++) {
+        final String name = batch.names.get(i);
+        final SettableFuture<String> future = batch.futures.get(i);
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            createOne(batch.launch, name, future);
+          }
+        });
+      }
+      return;
+    }
+    log.debug("Launching " + count + " VMs with one request: " + batch.names);
+    try {
+      List<String> ids = create(batch.launch, batch.baseName, count);
+      for (int i = 0; i < count; i++) {
+        batch.futures.get(i).set(ids.get(indexOf(batch.names.get(i), batch.baseName) - 1));
+      }
+    } catch (Exception e) {
+      log.error("Not able to launch the VMs " + batch.names + ": " + e.getMessage());
+      for (SettableFuture<String> future : batch.futures) {
+        future.setException(e);
+      }
+    }
+  }
+
+  private void createOne(Launch launch, String name, SettableFuture<String> future) {
+    try {
+      future.set(create(launch, name));
+    } catch (Exception e) {
+      future.setException(e);
+    }
+  }
+
+  /**
+   * Returns the base name of a VM named after it followed by "-" and a number, or null if it is named otherwise.
+   */
+  static String baseName(String name) {
+    if (name == null) {
+      return null;
+    }
+    int dash = name.lastIndexOf('-');
+    if (dash <= 0 || indexOf(name, name.substring(0, dash)) < 0) {
+      return null;
+    }
+    return name.substring(0, dash);
+  }
+
+  /**
+   * Returns the index of a VM named after the base name followed by "-" and a number, or -1 if it is named otherwise.
+   */
+  static int indexOf(String name, String baseName) {
+    if (name == null || !name.startsWith(baseName + "-")) {
+      return -1;
+    }
+    String index = name.substring(baseName.length() + 1);
+    if (index.isEmpty() || index.length() > 9 || !index.matches("[0-9]+")) {
+      return -1;
+    }
+    return Integer.parseInt(index);
+  }
+
+  /**
+   * The parameters a launch shares with the other launches of its batch, with the VimInstance and zone it goes to.
+   */
+  static class Launch {
+    final VimInstance vimInstance;
+    final String zone;
+    final String imageId;
+    final String flavorId;
+    final String keypair;
+    final Set<String> network;
+    final Set<String> secGroup;
+    final String userData;
+
+    Launch(VimInstance vimInstance,
+           String zone,
+           String imageId,
+           String flavorId,
+           String keypair,
+           Set<String> network,
+           Set<String> secGroup,
+           String userData) {
+      this.vimInstance = vimInstance;
+      this.zone = zone;
+      this.imageId = imageId;
+      this.flavorId = flavorId;
+      this.keypair = keypair;
+      this.network = network;
+      this.secGroup = secGroup;
+      this.userData = userData;
+    }
+
+    private String key() {
+      return zone + "|" + imageId + "|" + flavorId + "|" + keypair + "|" + sorted(network) + "|" + sorted(secGroup) +
+             "|" + userData;
+    }
+
+    private static Set<String> sorted(Set<String> values) {
+      return values == null ? null : new TreeSet<>(values);
+    }
+  }
+
+  private static class Batch {
+    private final String key;
+    private final Launch launch;
+    private final String baseName;
+    private final List<String> names = new ArrayList<>();
+    private final List<SettableFuture<String>> futures = new ArrayList<>();
+    private boolean flushed;
+
+    private Batch(String key, Launch launch, String baseName) {
+      this.key = key;
+      this.launch = launch;
+      this.baseName = baseName;
+    }
+  }
+}
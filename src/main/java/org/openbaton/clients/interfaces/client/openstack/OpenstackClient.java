@@ -17,8 +17,24 @@
 package org.openbaton.clients.interfaces.client.openstack;
 
 import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
@@ -26,16 +42,12 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
-import com.google.inject.Key;
 import com.google.inject.Module;
-import com.google.inject.TypeLiteral;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.net.util.SubnetUtils;
-import org.jclouds.ContextBuilder;
+import org.jclouds.Constants;
 import org.jclouds.collect.PagedIterable;
-import org.jclouds.compute.ComputeServiceContext;
-import org.jclouds.domain.Credentials;
 import org.jclouds.io.Payload;
 import org.jclouds.io.payloads.ByteArrayPayload;
 import org.jclouds.io.payloads.InputStreamPayload;
@@ -51,7 +63,6 @@ import org.jclouds.openstack.glance.v1_0.options.UpdateImageOptions;
 import org.jclouds.openstack.keystone.v2_0.config.CredentialTypes;
 import org.jclouds.openstack.keystone.v2_0.config.KeystoneProperties;
 import org.jclouds.openstack.keystone.v2_0.domain.Access;
-import org.jclouds.openstack.keystone.v2_0.domain.Endpoint;
 import org.jclouds.openstack.neutron.v2.NeutronApi;
 import org.jclouds.openstack.neutron.v2.domain.ExternalGatewayInfo;
 import org.jclouds.openstack.neutron.v2.domain.IP;
@@ -73,7 +84,9 @@ import org.jclouds.openstack.nova.v2_0.domain.RebootType;
 import org.jclouds.openstack.nova.v2_0.features.FlavorApi;
 import org.jclouds.openstack.nova.v2_0.features.ServerApi;
 import org.jclouds.openstack.nova.v2_0.options.CreateServerOptions;
+import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
 import org.jclouds.openstack.v2_0.domain.Resource;
+import org.jclouds.openstack.v2_0.options.PaginationOptions;
 import org.jclouds.scriptbuilder.ScriptBuilder;
 import org.jclouds.scriptbuilder.domain.OsFamily;
 import org.openbaton.catalogue.mano.common.DeploymentFlavour;
@@ -103,21 +116,38 @@ import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.net.UnknownHostException;
 import java.rmi.RemoteException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import static org.jclouds.scriptbuilder.domain.Statements.exec;
@@ -133,8 +163,40 @@ public class OpenstackClient extends VimDriver {
   Iterable<Module> modules;
   Properties overrides;
   private static Logger log = LoggerFactory.getLogger(OpenstackClient.class);
-  private static Lock lock;
+  private static StripedLocks floatingIpLocks;
+  private static ConcurrentMap<String, FloatingIpReservoir> floatingIpReservoirs = new ConcurrentHashMap<>();
+  private static ContextRegistry contexts;
+  private static AccessCache accessCache;
+  private static ScheduledExecutorService scheduler;
+  private static ListeningExecutorService executor;
+  private static String workerThreads;
+  private static InventoryCache inventoryCache;
+  private static PollSchedule pollSchedule;
+  private static ConcurrentMap<String, StatusPoller> statusPollers = new ConcurrentHashMap<>();
+  private static ConcurrentMap<String, LaunchCoalescer> launchCoalescers = new ConcurrentHashMap<>();
+  private static ConcurrentMap<String, RequestQueue> deleteRequests = new ConcurrentHashMap<>();
+  private static ConcurrentMap<String, Inventory<Server>> serverInventories = new ConcurrentHashMap<>();
+  private static ConcurrentMap<String, Inventory<NFVImage>> imageInventories = new ConcurrentHashMap<>();
+  private static Cache<String, String> zones;
+  private static Cache<String, String> ipPools;
   private Gson gson = new GsonBuilder().create();
+  private int pageSize;
+  private long syncClockSkew;
+  private int statusPollMaxMissed;
+  private long launchTimeout;
+  private long deleteTimeout;
+  private long launchCoalesceWindow;
+  private int launchCoalesceMaxBatch;
+  private int deleteConcurrency;
+  private int floatingIpReservoirLow;
+  private int floatingIpReservoirHigh;
+  private long floatingIpReservoirTrimInterval;
+  private long floatingIpIndexRefreshInterval;
+  private long floatingIpLeaseTimeout;
+  private int floatingIpAllocateConcurrency;
+  private long contextIdleTimeout;
+  private int httpConnectTimeout;
+  private int httpReadTimeout;
 
   public OpenstackClient() throws RemoteException {
     super();
@@ -152,7 +214,7 @@ public class OpenstackClient extends VimDriver {
                                          TimeoutException,
                                          IllegalAccessException,
                                          InvocationTargetException {
-    OpenstackClient.lock = new ReentrantLock();
+    OpenstackClient.workerThreads = System.getProperty("openstack.worker-threads");
     if (args.length == 6) {
       PluginStarter.registerPlugin(OpenstackClient.class,
                                    args[0],
@@ -172,26 +234,175 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
+  /**
+   * Creates the pool running the driver operations and their fan-out: a virtual thread per task when mode is
+   * "virtual" and the jvm supports it, a cached pool of daemon threads otherwise.
+   */
+  private static ExecutorService newWorkerPool(String mode) {
+    if (mode.equalsIgnoreCase("virtual")) {
+      try {
+        ExecutorService pool = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                                                                .invoke(null);
+        log.info("Running the driver operations on virtual threads");
+        return pool;
+      } catch (NoSuchMethodException e) {
+        log.warn("Virtual threads are not supported by this jvm, running the driver operations on platform threads");
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        log.warn("Not able to create virtual threads, running the driver operations on platform threads: " +
+                 e.getMessage());
+      }
+    }
+    return Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true)
+                                                                   .setNameFormat("openstack-worker-%d")
+                                                                   .build());
+  }
+
   public void init() {
     modules = ImmutableSet.<Module>of(new SLF4JLoggingModule());
     overrides = new Properties();
     overrides.setProperty(KeystoneProperties.CREDENTIAL_TYPE, CredentialTypes.PASSWORD_CREDENTIALS);
+    httpConnectTimeout =
+        (int) TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty("http-connect-timeout", "10").trim()));
+    httpReadTimeout =
+        (int) TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty("http-read-timeout", "60").trim()));
+    overrides.setProperty(Constants.PROPERTY_CONNECTION_TIMEOUT, String.valueOf(httpConnectTimeout));
+    overrides.setProperty(Constants.PROPERTY_SO_TIMEOUT, String.valueOf(httpReadTimeout));
     String sslChecksDisabled = properties.getProperty("disable-ssl-certificate-checks", "false");
     log.debug("Disable SSL certificate checks: {}", sslChecksDisabled);
     if (sslChecksDisabled.trim().equals("true")) {
       DisableSSLValidation.disableChecks();
     }
+    pageSize = Integer.parseInt(properties.getProperty("page-size", "100").trim());
+    syncClockSkew = TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty("sync-clock-skew", "60").trim()));
+    statusPollMaxMissed = Integer.parseInt(properties.getProperty("status-poll-max-missed", "5").trim());
+    launchTimeout = Long.parseLong(properties.getProperty("launch-timeout", "600").trim());
+    deleteTimeout = Long.parseLong(properties.getProperty("delete-timeout", "300").trim());
+    launchCoalesceWindow = Long.parseLong(properties.getProperty("launch-coalesce-window", "0").trim());
+    launchCoalesceMaxBatch = Integer.parseInt(properties.getProperty("launch-coalesce-max-batch", "10").trim());
+    deleteConcurrency = Integer.parseInt(properties.getProperty("delete-concurrency", "10").trim());
+    floatingIpReservoirLow = Integer.parseInt(properties.getProperty("floating-ip-reservoir-low", "1").trim());
+    floatingIpReservoirHigh = Integer.parseInt(properties.getProperty("floating-ip-reservoir-high", "3").trim());
+    floatingIpReservoirTrimInterval =
+        Long.parseLong(properties.getProperty("floating-ip-reservoir-trim-interval", "600").trim());
+    floatingIpIndexRefreshInterval =
+        Long.parseLong(properties.getProperty("floating-ip-index-refresh-interval", "60").trim());
+    floatingIpLeaseTimeout = Long.parseLong(properties.getProperty("floating-ip-lease-timeout", "120").trim());
+    floatingIpAllocateConcurrency =
+        Integer.parseInt(properties.getProperty("floating-ip-allocate-concurrency", "5").trim());
+    contextIdleTimeout = Long.parseLong(properties.getProperty("context-idle-timeout", "600").trim());
+    synchronized (OpenstackClient.class) {
+      if (contexts == null) {
+        log.debug("Idle timeout of the openstack contexts: {} seconds", contextIdleTimeout);
+        contexts = new ContextRegistry(modules, overrides, contextIdleTimeout);
+        scheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+                                                                                 .setNameFormat(
+                                                                                     "openstack-scheduler-%d")
+                                                                                 .build());
+        if (workerThreads == null) {
+          workerThreads = properties.getProperty("worker-threads", "platform").trim();
+        }
+        executor = MoreExecutors.listeningDecorator(newWorkerPool(workerThreads));
+        long refreshMargin = Long.parseLong(properties.getProperty("token-refresh-margin", "300").trim());
+        accessCache = new AccessCache(contexts, scheduler, executor, refreshMargin, contextIdleTimeout);
+        long zoneCacheTtl = Long.parseLong(properties.getProperty("zone-cache-ttl", "3600").trim());
+        zones = CacheBuilder.newBuilder().expireAfterWrite(zoneCacheTtl, TimeUnit.SECONDS).build();
+        ipPools = CacheBuilder.newBuilder().expireAfterWrite(zoneCacheTtl, TimeUnit.SECONDS).build();
+        floatingIpLocks =
+            new StripedLocks(Integer.parseInt(properties.getProperty("floating-ip-lock-stripes", "64").trim()),
+                             TimeUnit.SECONDS.toMillis(Long.parseLong(properties.getProperty(
+                                 "floating-ip-lock-timeout",
+                                 "120").trim())));
+        Map<String, Long> inventoryTtls = new HashMap<>();
+        inventoryTtls.put(InventoryCache.IMAGES,
+                          Long.parseLong(properties.getProperty("image-cache-ttl", "300").trim()));
+        inventoryTtls.put(InventoryCache.FLAVORS,
+                          Long.parseLong(properties.getProperty("flavor-cache-ttl", "600").trim()));
+        inventoryTtls.put(InventoryCache.NETWORKS,
+                          Long.parseLong(properties.getProperty("network-cache-ttl", "60").trim()));
+        long inventoryCacheSize = Long.parseLong(properties.getProperty("inventory-cache-size", "1000").trim());
+        inventoryCache = new InventoryCache(inventoryCacheSize, inventoryTtls);
+        pollSchedule = new PollSchedule(Long.parseLong(properties.getProperty("status-poll-interval", "1000").trim()),
+                                        Long.parseLong(properties.getProperty("status-poll-max-interval", "30000")
+                                                                 .trim()),
+                                        Integer.parseInt(properties.getProperty("poll-history-size", "20").trim()));
+      }
+    }
+  }
+
+  /**
+   * Drops the registries shared by all the instances, so that the next init builds them again from its properties.
+   * Only meant for tests.
+   */
+  static void reset() {
+    synchronized (OpenstackClient.class) {
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+      }
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      contexts = null;
+      floatingIpReservoirs.clear();
+      statusPollers.clear();
+      launchCoalescers.clear();
+      deleteRequests.clear();
+      serverInventories.clear();
+      imageInventories.clear();
+    }
+  }
+
+  /**
+   * Returns the hit, miss and eviction counters of the image, flavor and network caches, by kind.
+   */
+  public Map<String, CacheStats> getInventoryCacheStats() {
+    return inventoryCache.stats();
+  }
+
+  /**
+   * Returns the number of wake-ups and status polls done while waiting for VMs to boot or to be deleted, and the
+   * number of waits completed, by name.
+   */
+  public Map<String, Long> getPollMetrics() {
+    return pollSchedule.metrics();
+  }
+
+  /**
+   * Returns the zone resolved for the location and auth url of the VimInstance, resolving it only when it is not
+   * cached yet or when its ttl expired. Changing the location or the auth url of the VimInstance changes the key.
+   */
+  private String getZone(final VimInstance vimInstance) {
+    String locationName = vimInstance.getLocation() == null ? null : vimInstance.getLocation().getName();
+    try {
+      return zones.get(vimInstance.getAuthUrl() + "|" + locationName, new Callable<String>() {
+        @Override
+        public String call() throws Exception {
+          return resolveZone(vimInstance);
+        }
+      });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
   }
 
-  private String getZone(VimInstance vimInstance) {
-    NovaApi
-        novaApi =
-        ContextBuilder.newBuilder("openstack-nova")
-                      .endpoint(vimInstance.getAuthUrl())
-                      .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(), vimInstance.getPassword())
-                      .modules(modules)
-                      .overrides(overrides)
-                      .buildApi(NovaApi.class);
+  /**
+   * Returns the public endpoint of the service in the zone of the VimInstance, from the catalog of its cached token.
+   */
+  private URI getEndpoint(VimInstance vimInstance, String serviceType, String serviceName) {
+    URI endpoint = accessCache.getEndpoints(vimInstance)
+                              .get(serviceType, serviceName, getZone(vimInstance), EndpointIndex.PUBLIC);
+    if (endpoint == null) {
+      log.warn("Not found " + serviceName + " endpoint in the service catalog of VimInstance with name: " +
+               vimInstance.getName());
+    }
+    return endpoint;
+  }
+
+  private String resolveZone(VimInstance vimInstance) {
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
     Set<String> zones = novaApi.getConfiguredRegions();
     log.debug("Available openstack environment zones: " + zones);
     String zone = null;
@@ -241,26 +452,24 @@ public class OpenstackClient extends VimDriver {
                                Set<String> secGroup,
                                String userData) throws VimDriverException {
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
-      ServerApi serverApi = novaApi.getServerApi(getZone(vimInstance));
-      String script = new ScriptBuilder().addStatement(exec(userData)).render(OsFamily.UNIX);
-      CreateServerOptions
-          options =
-          CreateServerOptions.Builder.keyPairName(keypair)
-                                     .networks(network)
-                                     .securityGroupNames(secGroup)
-                                     .userData(script.getBytes());
-
-      log.debug("Keypair: " + keypair + ", SecGroup, " + secGroup + ", imageId: " + imageId + ", flavorId: " + flavorId + ", networks: " + network);
-      String extId = serverApi.create(name, imageId, flavorId, options).getId();
+      LaunchCoalescer.Launch launch = new LaunchCoalescer.Launch(vimInstance,
+                                                                 getZone(vimInstance),
+                                                                 imageId,
+                                                                 flavorId,
+                                                                 keypair,
+                                                                 network,
+                                                                 secGroup,
+                                                                 userData);
+      String extId;
+      if (launchCoalesceWindow > 0) {
+        try {
+          extId = getLaunchCoalescer(vimInstance).submit(launch, name).get();
+        } catch (ExecutionException e) {
+          throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+      } else {
+        extId = createServer(vimInstance, launch, name);
+      }
       Server server = getServerById(vimInstance, extId);
       log.debug("Created Server: " + server);
       return server;
@@ -270,6 +479,58 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
+  private String createServer(VimInstance vimInstance, LaunchCoalescer.Launch launch, String name) {
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
+    ServerApi serverApi = novaApi.getServerApi(launch.zone);
+    String script = new ScriptBuilder().addStatement(exec(launch.userData)).render(OsFamily.UNIX);
+    CreateServerOptions
+        options =
+        CreateServerOptions.Builder.keyPairName(launch.keypair)
+                                   .networks(launch.network)
+                                   .securityGroupNames(launch.secGroup)
+                                   .userData(script.getBytes());
+
+    log.debug("Keypair: " + launch.keypair + ", SecGroup, " + launch.secGroup + ", imageId: " + launch.imageId +
+              ", flavorId: " + launch.flavorId + ", networks: " + launch.network);
+    return serverApi.create(name, launch.imageId, launch.flavorId, options).getId();
+  }
+
+  /**
+   * Returns the coalescer grouping the concurrent launches on the VimInstance with the same credentials. Every batch
+   * is created with the VimInstance and zone of its launches.
+   */
+  private LaunchCoalescer getLaunchCoalescer(VimInstance vimInstance) {
+    String key = ContextRegistry.identity(vimInstance) + "|" + ContextRegistry.credentialHash(vimInstance);
+    LaunchCoalescer coalescer = launchCoalescers.get(key);
+    if (coalescer == null) {
+      launchCoalescers.putIfAbsent(key, new LaunchCoalescer(scheduler,
+                                                            executor,
+                                                            launchCoalesceWindow,
+                                                            launchCoalesceMaxBatch) {
+        @Override
+        protected List<String> create(Launch launch, String baseName, int count) throws Exception {
+          List<String> extIds = new ArrayList<>();
+          for (org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer : createServers(
+              launch.vimInstance,
+              launch,
+              baseName,
+              count,
+              System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(launchTimeout))) {
+            extIds.add(jcloudsServer.getId());
+          }
+          return extIds;
+        }
+
+        @Override
+        protected String create(Launch launch, String name) throws Exception {
+          return createServer(launch.vimInstance, launch, name);
+        }
+      });
+      coalescer = launchCoalescers.get(key);
+    }
+    return coalescer;
+  }
+
   public Server launchInstanceAndWait(VimInstance vimInstance,
                                       String name,
                                       String imageId,
@@ -292,60 +553,537 @@ public class OpenstackClient extends VimDriver {
                                       String userData,
                                       Map<String, String> floatingIp,
                                       Set<org.openbaton.catalogue.security.Key> keys) throws VimDriverException {
-    boolean bootCompleted = false;
+    return getResult(launchInstanceAndWaitAsync(vimInstance,
+                                                name,
+                                                imageId,
+                                                flavorId,
+                                                keypair,
+                                                network,
+                                                secGroup,
+                                                userData,
+                                                floatingIp,
+                                                keys));
+  }
+
+  /**
+   * Launches a VM and returns a future completed with it once it is ACTIVE and its floating ips are assigned.
+   *
+   * No thread is blocked while the VM boots: the create request and the final conversion run on the worker pool, and
+   * the boot is awaited by the status poller of the VimInstance. The future fails with a VimDriverException carrying
+   * the VM if it goes into ERROR or does not boot within the launch timeout.
+   */
+  public ListenableFuture<Server> launchInstanceAndWaitAsync(final VimInstance vimInstance,
+                                                             final String name,
+                                                             final String imageId,
+                                                             final String flavorId,
+                                                             final String keypair,
+                                                             final Set<String> network,
+                                                             final Set<String> secGroup,
+                                                             String userData,
+                                                             final Map<String, String> floatingIp,
+                                                             Set<org.openbaton.catalogue.security.Key> keys) {
     if (keys != null && !keys.isEmpty())
       userData = addKeysToUserData(userData,keys);
     log.info("Deploying VM on VimInstance: " + vimInstance.getName());
     log.debug("UserData is:\n " + userData + " \n");
-    Server server = launchInstance(vimInstance, name, imageId, flavorId, keypair, network, secGroup, userData);
-    log.info("Deployed VM ( " +
-             server.getName() +
-             " ) with extId: " +
-             server.getExtId() +
-             " in status " +
-             server.getStatus());
-    while (bootCompleted == false) {
-      log.debug("Waiting for VM with hostname: " + name + " to finish the launch");
-      try {
-        Thread.sleep(1000);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
+    final String script = userData;
+    ListenableFuture<Server> created = executor.submit(new Callable<Server>() {
+      @Override
+      public Server call() throws VimDriverException {
+        return launchInstance(vimInstance, name, imageId, flavorId, keypair, network, secGroup, script);
       }
-      server = getServerById(vimInstance, server.getExtId());
-      if (server.getStatus().equals("ACTIVE")) {
-        log.debug("Finished deployment of VM with hostname: " + name);
-        bootCompleted = true;
+    });
+    return Futures.transform(created, new AsyncFunction<Server, Server>() {
+      @Override
+      public ListenableFuture<Server> apply(final Server server) {
+        log.info("Deployed VM ( " +
+                 server.getName() +
+                 " ) with extId: " +
+                 server.getExtId() +
+                 " in status " +
+                 server.getStatus());
+        log.debug("Waiting for VM with hostname: " + name + " to finish the launch");
+        VimDriverException timeout = new VimDriverException(
+            "VM with hostname: " + name + " did not finish the launch after " + launchTimeout + " seconds");
+        timeout.setServer(server);
+        ListenableFuture<org.jclouds.openstack.nova.v2_0.domain.Server> booted =
+            withTimeout(getStatusPoller(vimInstance).await(server.getExtId(), PollSchedule.key(imageId, flavorId)),
+                        TimeUnit.SECONDS.toMillis(launchTimeout),
+                        timeout);
+        return Futures.transform(booted,
+                                 new AsyncFunction<org.jclouds.openstack.nova.v2_0.domain.Server, Server>() {
+                                   @Override
+                                   public ListenableFuture<Server> apply(
+                                       final org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer) {
+                                     return executor.submit(new Callable<Server>() {
+                                       @Override
+                                       public Server call() throws VimDriverException {
+                                         return finishLaunch(vimInstance, name, jcloudsServer, floatingIp);
+                                       }
+                                     });
+                                   }
+                                 });
       }
-      if (server.getStatus().equals("ERROR")) {
-        log.error("Failed to launch VM with hostname: " + name + " -> Went into ERROR");
-        VimDriverException vimDriverException = new VimDriverException(server.getExtendedStatus());
-        vimDriverException.setServer(server);
-        throw vimDriverException;
+    });
+  }
+
+  private Server finishLaunch(VimInstance vimInstance,
+                              String name,
+                              org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer,
+                              Map<String, String> floatingIp) throws VimDriverException {
+    Server server = toServer(vimInstance, jcloudsServer, null, null);
+    if (jcloudsServer.getStatus() != org.jclouds.openstack.nova.v2_0.domain.Server.Status.ACTIVE) {
+      log.error("Failed to launch VM with hostname: " + name + " -> Went into " + jcloudsServer.getStatus());
+      VimDriverException vimDriverException = new VimDriverException(server.getExtendedStatus());
+      vimDriverException.setServer(server);
+      throw vimDriverException;
+    }
+    log.debug("Finished deployment of VM with hostname: " + name);
+    assignFloatingIps(vimInstance, server, floatingIp);
+    return server;
+  }
+
+  /**
+   * Returns a future completed like the given one, or failed with the given exception if the given one is not done
+   * within the timeout, in which case the given one is cancelled. The timeout is a timer of the shared scheduler.
+   */
+  private static <T> ListenableFuture<T> withTimeout(final ListenableFuture<T> future,
+                                                     long timeout,
+                                                     final VimDriverException onTimeout) {
+    final SettableFuture<T> result = SettableFuture.create();
+    final ScheduledFuture<?> timer = scheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        if (result.setException(onTimeout)) {
+          log.error(onTimeout.getMessage());
+          future.cancel(false);
+        }
+      }
+    }, timeout, TimeUnit.MILLISECONDS);
+    Futures.addCallback(future, new FutureCallback<T>() {
+      @Override
+      public void onSuccess(T value) {
+        timer.cancel(false);
+        result.set(value);
       }
+
+      @Override
+      public void onFailure(Throwable t) {
+        timer.cancel(false);
+        result.setException(t);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Blocks until the future is done and returns its value, rethrowing the VimDriverException it failed with.
+   */
+  private static <T> T getResult(ListenableFuture<T> future) throws VimDriverException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(false);
+      throw new VimDriverException("Interrupted while waiting for the operation to finish");
+    } catch (ExecutionException e) {
+      throw toVimDriverException(e.getCause());
     }
+  }
+
+  private static VimDriverException toVimDriverException(Throwable t) {
+    if (t instanceof VimDriverException) {
+      return (VimDriverException) t;
+    }
+    log.error(t.getMessage(), t);
+    return new VimDriverException(t.getMessage());
+  }
+
+  private void assignFloatingIps(VimInstance vimInstance, Server server, Map<String, String> floatingIp) throws
+                                                                                                     VimDriverException {
+    String name = server.getName();
     if (floatingIp != null && floatingIp.size() > 0) {
-      lock.lock();
       log.debug("Assigning FloatingIPs to VM with hostname: " + name);
       log.debug("FloatingIPs are: " + floatingIp);
-      int freeIps = listFreeFloatingIps(vimInstance).size();
-      int ipsNeeded = floatingIp.size();
-      if (freeIps < ipsNeeded) {
-        log.info("Insufficient number of ips allocated to tenant, will try to allocate more ips from pool");
-        log.debug("Getting the pool name of a floating ip pool");
-        String pool_name = getIpPoolName(vimInstance);
-        get_allocated(vimInstance, pool_name, ipsNeeded - freeIps);
-      }
-      if (listFreeFloatingIps(vimInstance).size() >= floatingIp.size()) {
-        for (Map.Entry<String, String> fip : floatingIp.entrySet()) {
-          associateFloatingIpToNetwork(vimInstance, server, fip);
+      for (Map.Entry<String, String> fip : floatingIp.entrySet()) {
+        if (fip.getValue() != null && !fip.getValue().equals("random")) {
+          for (FloatingIpReservoir reservoir : getFloatingIpReservoirs(vimInstance)) {
+            reservoir.remove(vimInstance, fip.getValue());
+          }
+        }
+        associateFloatingIpToNetwork(vimInstance, server, fip);
+        if (server.getFloatingIps() != null && server.getFloatingIps().containsKey(fip.getKey())) {
           log.info("Assigned FloatingIPs to VM with hostname: " + name + " -> FloatingIPs: " + server.getFloatingIps());
         }
+      }
+    }
+  }
+
+  /**
+   * Returns the reservoirs of free floating ips that already exist for the pools of the VimInstance.
+   */
+  private List<FloatingIpReservoir> getFloatingIpReservoirs(VimInstance vimInstance) {
+    String prefix = ContextRegistry.identity(vimInstance) + "|" + ContextRegistry.credentialHash(vimInstance) + "|";
+    List<FloatingIpReservoir> reservoirs = new ArrayList<>();
+    for (Map.Entry<String, FloatingIpReservoir> reservoir : floatingIpReservoirs.entrySet()) {
+      if (reservoir.getKey().startsWith(prefix)) {
+        reservoirs.add(reservoir.getValue());
+      }
+    }
+    return reservoirs;
+  }
+
+  /**
+   * Returns the reservoir of free floating ips of the VimInstance and pool, replacing it once it was closed for being
+   * idle.
+   */
+  private FloatingIpReservoir getFloatingIpReservoir(VimInstance vimInstance, final String pool) {
+    final String key =
+        ContextRegistry.identity(vimInstance) + "|" + ContextRegistry.credentialHash(vimInstance) + "|" + pool;
+    FloatingIpReservoir reservoir = floatingIpReservoirs.get(key);
+    while (reservoir == null || reservoir.isClosed()) {
+      if (reservoir != null) {
+        floatingIpReservoirs.remove(key, reservoir);
+      }
+      FloatingIpReservoir created = new FloatingIpReservoir(vimInstance.getName() + "/" + pool,
+                                                            vimInstance,
+                                                            scheduler,
+                                                            executor,
+                                                            floatingIpReservoirLow,
+                                                            floatingIpReservoirHigh,
+                                                            floatingIpReservoirTrimInterval,
+                                                            floatingIpIndexRefreshInterval,
+                                                            floatingIpLeaseTimeout * 1000,
+                                                            contextIdleTimeout * 1000) {
+        @Override
+        protected List<String> listFree(VimInstance vimInstance) throws VimDriverException {
+          return listFreeFloatingIps(vimInstance, pool);
+        }
+
+        @Override
+        protected List<String> allocate(VimInstance vimInstance, int count) throws VimDriverException {
+          StripedLocks.Held held = floatingIpLocks.lock(key);
+          try {
+            return get_allocated(vimInstance, pool, count);
+          } finally {
+            held.release();
+          }
+        }
+
+        @Override
+        protected void release(VimInstance vimInstance, String ip) throws VimDriverException {
+          StripedLocks.Held held = floatingIpLocks.lock(key);
+          try {
+            releaseFloatingIp(vimInstance, ip);
+          } finally {
+            held.release();
+          }
+        }
+
+        @Override
+        protected void closed() {
+          floatingIpReservoirs.remove(key, this);
+        }
+      };
+      reservoir = floatingIpReservoirs.putIfAbsent(key, created);
+      if (reservoir == null) {
+        reservoir = created;
       } else {
-        log.error("Cannot assign FloatingIPs to VM with hostname: " + name + ". No FloatingIPs left...");
+        created.close();
       }
-      lock.unlock();
     }
-    return server;
+    return reservoir;
+  }
+
+  /**
+   * Gives the floating ip with the address back to its pool.
+   */
+  private void releaseFloatingIp(VimInstance vimInstance, String address) {
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
+    if (!novaApi.getFloatingIPApi(getZone(vimInstance)).isPresent()) {
+      log.warn("Could not access floating ip API");
+      return;
+    }
+    org.jclouds.openstack.nova.v2_0.extensions.FloatingIPApi floatingIPApi =
+        novaApi.getFloatingIPApi(getZone(vimInstance)).get();
+    for (FloatingIP floatingIP : floatingIPApi.list()) {
+      if (address.equals(floatingIP.getIp()) && floatingIP.getInstanceId() == null) {
+        floatingIPApi.delete(floatingIP.getId());
+        log.info("Released floating ip " + address + " of VimInstance with name: " + vimInstance.getName());
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the name of the floating ip pool of the VimInstance, asking it only when it is not cached yet or when its
+   * ttl expired.
+   */
+  private String getCachedIpPoolName(final VimInstance vimInstance) {
+    String pool = ipPools.getIfPresent(ContextRegistry.identity(vimInstance));
+    if (pool == null) {
+      log.debug("Getting the pool name of a floating ip pool");
+      pool = getIpPoolName(vimInstance);
+      if (pool != null) {
+        ipPools.put(ContextRegistry.identity(vimInstance), pool);
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * Returns the number of floating ip locks acquired and timed out, and the milliseconds spent waiting for and
+   * holding them, by name.
+   */
+  public Map<String, Long> getFloatingIpLockMetrics() {
+    return floatingIpLocks.metrics();
+  }
+
+  /**
+   * Launches count identical VMs with a single nova request and waits for all of them with the status poller of the
+   * VimInstance. The VMs are named after the given name followed by their index, starting from 1.
+   *
+   * A VM that goes into ERROR, disappears or does not become ACTIVE before the launch timeout is reported among the
+   * failures of the result instead of failing the whole launch.
+   */
+  public BulkLaunchResult launchInstancesAndWait(VimInstance vimInstance,
+                                                 String name,
+                                                 String imageId,
+                                                 String flavorId,
+                                                 String keypair,
+                                                 Set<String> network,
+                                                 Set<String> secGroup,
+                                                 String userData,
+                                                 int count,
+                                                 Map<String, String> floatingIp,
+                                                 Set<org.openbaton.catalogue.security.Key> keys) throws
+                                                                                                VimDriverException {
+    if (keys != null && !keys.isEmpty()) {
+      userData = addKeysToUserData(userData, keys);
+    }
+    if (count < 1) {
+      throw new VimDriverException("Not able to launch " + count + " VMs with name: " + name);
+    }
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(launchTimeout);
+    List<org.jclouds.openstack.nova.v2_0.domain.Server> created =
+        createServers(vimInstance,
+                      new LaunchCoalescer.Launch(vimInstance,
+                                                 getZone(vimInstance),
+                                                 imageId,
+                                                 flavorId,
+                                                 keypair,
+                                                 network,
+                                                 secGroup,
+                                                 userData),
+                      name,
+                      count,
+                      deadline);
+    log.info("Deployed " + created.size() + " VMs with name: " + name);
+    StatusPoller poller = getStatusPoller(vimInstance);
+    Map<String, ListenableFuture<org.jclouds.openstack.nova.v2_0.domain.Server>> launches = new LinkedHashMap<>();
+    for (org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer : created) {
+      launches.put(jcloudsServer.getId(), poller.await(jcloudsServer.getId(), PollSchedule.key(imageId, flavorId)));
+    }
+    BulkLaunchResult result = new BulkLaunchResult();
+    for (org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer : created) {
+      ListenableFuture<org.jclouds.openstack.nova.v2_0.domain.Server> launched = launches.get(jcloudsServer.getId());
+      Server server;
+      try {
+        org.jclouds.openstack.nova.v2_0.domain.Server finished =
+            launched.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        server = toServer(vimInstance, finished, null, null);
+        if (finished.getStatus() != org.jclouds.openstack.nova.v2_0.domain.Server.Status.ACTIVE) {
+          log.error("Failed to launch VM with hostname: " + server.getName() + " -> Went into " +
+                    finished.getStatus());
+          result.addFailure(server, new VimDriverException(server.getExtendedStatus()));
+          continue;
+        }
+      } catch (TimeoutException e) {
+        launched.cancel(false);
+        server = toServer(vimInstance, jcloudsServer, null, null);
+        log.error("VM with hostname: " + server.getName() + " did not finish the launch after " + launchTimeout +
+                  " seconds");
+        result.addFailure(server,
+                          new VimDriverException("VM with hostname: " + server.getName() +
+                                                 " did not finish the launch after " + launchTimeout + " seconds"));
+        continue;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new VimDriverException("Interrupted while waiting for VMs with name: " + name + " to finish the launch");
+      } catch (ExecutionException e) {
+        log.error(e.getCause().getMessage(), e.getCause());
+        result.addFailure(toServer(vimInstance, jcloudsServer, null, null),
+                          new VimDriverException(e.getCause().getMessage()));
+        continue;
+      }
+      log.debug("Finished deployment of VM with hostname: " + server.getName());
+      assignFloatingIps(vimInstance, server, floatingIp);
+      result.addServer(server);
+    }
+    return result;
+  }
+
+  /**
+   * Creates count VMs named after the given name followed by their index, starting from 1, with one nova request.
+   * min_count and max_count make sure that either all of them or none are scheduled. The VMs are returned by index
+   * once all of them are listed under the reservation id of the request.
+   *
+   * Nova names the VMs of a multi-instance create, and sets their hostnames, after its multi-instance display name
+   * template, "name-index" by default. A VM named otherwise is renamed, which does not change its hostname.
+   */
+  private List<org.jclouds.openstack.nova.v2_0.domain.Server> createServers(VimInstance vimInstance,
+                                                                           LaunchCoalescer.Launch launch,
+                                                                           String name,
+                                                                           int count,
+                                                                           long deadline) throws
+                                                                                          VimDriverException {
+    HttpURLConnection connection = null;
+    String reservationId;
+    try {
+      Access access = accessCache.get(vimInstance);
+      URI endpoint = getEndpoint(vimInstance, "compute", "nova");
+      String script = new ScriptBuilder().addStatement(exec(launch.userData)).render(OsFamily.UNIX);
+      JsonObject server = new JsonObject();
+      // nova only applies its display name template to the VMs of a create with more than one instance
+      server.addProperty("name", count == 1 ? name + "-1" : name);
+      server.addProperty("imageRef", launch.imageId);
+      server.addProperty("flavorRef", launch.flavorId);
+      if (launch.keypair != null) {
+        server.addProperty("key_name", launch.keypair);
+      }
+      server.addProperty("user_data", BaseEncoding.base64().encode(script.getBytes()));
+      JsonArray networks = new JsonArray();
+      if (launch.network != null) {
+        for (String networkId : launch.network) {
+          JsonObject uuid = new JsonObject();
+          uuid.addProperty("uuid", networkId);
+          networks.add(uuid);
+        }
+      }
+      server.add("networks", networks);
+      JsonArray securityGroups = new JsonArray();
+      if (launch.secGroup != null) {
+        for (String securityGroup : launch.secGroup) {
+          JsonObject securityGroupName = new JsonObject();
+          securityGroupName.addProperty("name", securityGroup);
+          securityGroups.add(securityGroupName);
+        }
+      }
+      server.add("security_groups", securityGroups);
+      server.addProperty("min_count", count);
+      server.addProperty("max_count", count);
+      server.addProperty("return_reservation_id", true);
+      JsonObject body = new JsonObject();
+      body.add("server", server);
+      log.debug("Keypair: " + launch.keypair + ", SecGroup, " + launch.secGroup + ", imageId: " + launch.imageId +
+                ", flavorId: " + launch.flavorId + ", networks: " + launch.network + ", name: " + name + ", count: " +
+                count);
+
+      URL url = new URL(endpoint + "/servers");
+      connection = openConnection(url);
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setRequestProperty("Accept", "application/json");
+      connection.setRequestProperty("Content-Type", "application/json");
+      connection.setRequestProperty("X-Auth-Token", access.getToken().getId());
+      OutputStreamWriter out = new OutputStreamWriter(connection.getOutputStream());
+      out.write(body.toString());
+      out.close();
+
+      BufferedReader rd = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+      StringBuilder response = new StringBuilder();
+      String line;
+      while ((line = rd.readLine()) != null) {
+        response.append(line);
+      }
+      rd.close();
+      reservationId = new JsonParser().parse(response.toString()).getAsJsonObject().get("reservation_id").getAsString();
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+    log.debug("Created " + count + " VMs with name: " + name + " under reservation: " + reservationId);
+
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
+    ServerApi serverApi = novaApi.getServerApi(launch.zone);
+    Multimap<String, String> filters = HashMultimap.create();
+    filters.put("reservation_id", reservationId);
+    List<org.jclouds.openstack.nova.v2_0.domain.Server> created = new ArrayList<>();
+    while (true) {
+      created.clear();
+      for (org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer : serverApi.listInDetail(
+          new PaginationOptions().queryParameters(filters))) {
+        created.add(jcloudsServer);
+      }
+      if (created.size() >= count) {
+        break;
+      }
+      if (System.currentTimeMillis() >= deadline) {
+        throw new VimDriverException("Only " + created.size() + " of " + count + " VMs with name: " + name +
+                                     " were listed after " + launchTimeout + " seconds");
+      }
+      try {
+        Thread.sleep(pollSchedule.nextDelay(PollSchedule.BOOT, null, 0));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new VimDriverException("Interrupted while waiting for VMs with name: " + name + " to be listed");
+      }
+    }
+    List<org.jclouds.openstack.nova.v2_0.domain.Server> byIndex =
+        new ArrayList<>(Collections.<org.jclouds.openstack.nova.v2_0.domain.Server>nCopies(count, null));
+    List<org.jclouds.openstack.nova.v2_0.domain.Server> unnamed = new ArrayList<>();
+    for (org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer : created) {
+      int index = LaunchCoalescer.indexOf(jcloudsServer.getName(), name);
+      if (index >= 1 && index <= count && byIndex.get(index - 1) == null) {
+        byIndex.set(index - 1, jcloudsServer);
+      } else {
+        unnamed.add(jcloudsServer);
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (byIndex.get(i) == null) {
+        org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer = unnamed.remove(0);
+        String hostname = name + "-" + (i + 1);
+        log.warn("VM with ExtId: " + jcloudsServer.getId() + " was created as " + jcloudsServer.getName() +
+                 ", renaming it to " + hostname + ". Its hostname stays the one given by nova");
+        serverApi.rename(jcloudsServer.getId(), hostname);
+        byIndex.set(i, jcloudsServer);
+      }
+    }
+    return byIndex;
+  }
+
+  /**
+   * Returns the poller shared by all the launches waiting on the VimInstance with the same credentials.
+   */
+  private StatusPoller getStatusPoller(final VimInstance vimInstance) {
+    String key = ContextRegistry.identity(vimInstance) + "|" + ContextRegistry.credentialHash(vimInstance);
+    StatusPoller poller = statusPollers.get(key);
+    if (poller == null) {
+      statusPollers.putIfAbsent(key, new StatusPoller(vimInstance.getName(),
+                                                      scheduler,
+                                                      executor,
+                                                      pollSchedule,
+                                                      syncClockSkew,
+                                                      statusPollMaxMissed) {
+        @Override
+        protected Iterator<org.jclouds.openstack.nova.v2_0.domain.Server> listChangedSince(Date since)
+            throws Exception {
+          return iterateJcloudsServers(vimInstance, since);
+        }
+
+        @Override
+        protected org.jclouds.openstack.nova.v2_0.domain.Server get(String serverId) throws Exception {
+          return probeServer(vimInstance, serverId);
+        }
+      });
+      poller = statusPollers.get(key);
+    }
+    return poller;
   }
 
   private String addKeysToUserData(String userData, Set<org.openbaton.catalogue.security.Key> keys) {
@@ -375,15 +1113,7 @@ public class OpenstackClient extends VimDriver {
 
   public void rebootServer(VimInstance vimInstance, String extId, RebootType type) throws VimDriverException {
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       ServerApi serverApi = novaApi.getServerApi(getZone(vimInstance));
       serverApi.reboot(extId, type);
     } catch (Exception e) {
@@ -394,15 +1124,7 @@ public class OpenstackClient extends VimDriver {
 
   public void deleteServerById(VimInstance vimInstance, String extId) throws VimDriverException {
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       ServerApi serverApi = novaApi.getServerApi(getZone(vimInstance));
       serverApi.delete(extId);
     } catch (Exception e) {
@@ -411,120 +1133,614 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
-  @Override
-  public void deleteServerByIdAndWait(VimInstance vimInstance, String extId) throws VimDriverException {
-    boolean deleteCompleted = false;
-    log.debug("Deleting VM with ExtId: " + extId);
-    deleteServerById(vimInstance, extId);
-    while (deleteCompleted == false) {
-      log.debug("Waiting until VM with ExtId: " + extId + " is deleted...");
-      try {
-        Thread.sleep(1000);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
+  @Override
+  public void deleteServerByIdAndWait(VimInstance vimInstance, String extId) throws VimDriverException {
+    BulkDeleteResult result = deleteServersByIdAndWait(vimInstance, Collections.singletonList(extId));
+    if (result.getFailures().containsKey(extId)) {
+      throw result.getFailures().get(extId);
+    }
+  }
+
+  /**
+   * Deletes the VMs and waits until none of them exists anymore, polling all of them together. The delete requests
+   * are sent in parallel, at most delete-concurrency at a time per VimInstance. VMs that do not exist count as
+   * deleted.
+   */
+  public BulkDeleteResult deleteServersByIdAndWait(VimInstance vimInstance, Collection<String> extIds)
+      throws VimDriverException {
+    return getResult(deleteServersByIdAndWaitAsync(vimInstance, extIds));
+  }
+
+  /**
+   * Deletes the VMs and returns a future completed once all of them are gone or failed, without blocking a thread
+   * while they are deleted. The delete timeout of a VM starts once its delete request was sent, so the time it waited
+   * for its turn among the delete-concurrency requests of the VimInstance does not count.
+   */
+  public ListenableFuture<BulkDeleteResult> deleteServersByIdAndWaitAsync(final VimInstance vimInstance,
+                                                                          final Collection<String> extIds) {
+    ListenableFuture<Map<String, String>> existing = executor.submit(new Callable<Map<String, String>>() {
+      @Override
+      public Map<String, String> call() throws VimDriverException {
+        return getHistoryKeys(vimInstance, extIds);
+      }
+    });
+    return Futures.transform(existing, new AsyncFunction<Map<String, String>, BulkDeleteResult>() {
+      @Override
+      public ListenableFuture<BulkDeleteResult> apply(Map<String, String> historyKeys) {
+        return deleteExisting(vimInstance, extIds, historyKeys);
+      }
+    });
+  }
+
+  private ListenableFuture<BulkDeleteResult> deleteExisting(final VimInstance vimInstance,
+                                                            Collection<String> extIds,
+                                                            final Map<String, String> historyKeys) {
+    final StatusPoller poller = getStatusPoller(vimInstance);
+    final RequestQueue requests = getDeleteRequests(vimInstance);
+    final BulkDeleteResult result = new BulkDeleteResult();
+    final Map<String, ListenableFuture<org.jclouds.openstack.nova.v2_0.domain.Server>> deletions =
+        new LinkedHashMap<>();
+    for (final String extId : extIds) {
+      if (!historyKeys.containsKey(extId)) {
+        log.info("VM with ExtId: " + extId + " does not exist, nothing to delete");
+        result.addDeleted(extId);
+        continue;
+      }
+      ListenableFuture<Void> sent = requests.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws VimDriverException {
+          log.debug("Deleting VM with ExtId: " + extId);
+          deleteServerById(vimInstance, extId);
+          return null;
+        }
+      });
+      deletions.put(extId,
+                    Futures.transform(sent,
+                                      new AsyncFunction<Void, org.jclouds.openstack.nova.v2_0.domain.Server>() {
+                                        @Override
+                                        public ListenableFuture<org.jclouds.openstack.nova.v2_0.domain.Server> apply(
+                                            Void ignored) {
+                                          return withTimeout(poller.awaitDeletion(extId, historyKeys.get(extId)),
+                                                             TimeUnit.SECONDS.toMillis(deleteTimeout),
+                                                             new VimDriverException("VM with ExtId: " +
+                                                                                    extId +
+                                                                                    " was not deleted after " +
+                                                                                    deleteTimeout +
+                                                                                    " seconds"));
+                                        }
+                                      }));
+    }
+    return Futures.transform(Futures.successfulAsList(deletions.values()),
+                             new Function<List<org.jclouds.openstack.nova.v2_0.domain.Server>, BulkDeleteResult>() {
+                               @Override
+                               public BulkDeleteResult apply(
+                                   List<org.jclouds.openstack.nova.v2_0.domain.Server> ignored) {
+                                 for (Map.Entry<String, ListenableFuture<org.jclouds.openstack.nova.v2_0.domain.Server>>
+                                     deletion : deletions.entrySet()) {
+                                   try {
+                                     Uninterruptibles.getUninterruptibly(deletion.getValue());
+                                     log.info("Deleted VM with ExtId: " + deletion.getKey());
+                                     result.addDeleted(deletion.getKey());
+                                   } catch (ExecutionException e) {
+                                     result.addFailure(deletion.getKey(), toVimDriverException(e.getCause()));
+                                   } catch (CancellationException e) {
+                                     result.addFailure(deletion.getKey(), new VimDriverException(
+                                         "Deletion of VM with ExtId: " + deletion.getKey() + " was cancelled"));
+                                   }
+                                 }
+                                 return result;
+                               }
+                             });
+  }
+
+  private RequestQueue getDeleteRequests(VimInstance vimInstance) {
+    RequestQueue requests = deleteRequests.get(ContextRegistry.identity(vimInstance));
+    if (requests == null) {
+      deleteRequests.putIfAbsent(ContextRegistry.identity(vimInstance), new RequestQueue(executor, deleteConcurrency));
+      requests = deleteRequests.get(ContextRegistry.identity(vimInstance));
+    }
+    return requests;
+  }
+
+  /**
+   * Returns the {@link PollSchedule#key} of the image and flavor of every existing VM among the given ones, fetching a
+   * single VM on its own and more of them with one listing.
+   */
+  private Map<String, String> getHistoryKeys(VimInstance vimInstance, Collection<String> extIds) throws
+                                                                                                 VimDriverException {
+    Map<String, String> historyKeys = new HashMap<>();
+    try {
+      if (extIds.size() == 1) {
+        String extId = extIds.iterator().next();
+        NovaApi novaApi = contexts.getNovaApi(vimInstance);
+        org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer =
+            novaApi.getServerApi(getZone(vimInstance)).get(extId);
+        if (jcloudsServer != null &&
+            jcloudsServer.getStatus() != org.jclouds.openstack.nova.v2_0.domain.Server.Status.DELETED) {
+          historyKeys.put(extId, historyKey(jcloudsServer));
+        }
+        return historyKeys;
+      }
+      Iterator<org.jclouds.openstack.nova.v2_0.domain.Server> jcloudsServers = iterateJcloudsServers(vimInstance, null);
+      while (jcloudsServers.hasNext()) {
+        org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer = jcloudsServers.next();
+        if (extIds.contains(jcloudsServer.getId()) &&
+            jcloudsServer.getStatus() != org.jclouds.openstack.nova.v2_0.domain.Server.Status.DELETED) {
+          historyKeys.put(jcloudsServer.getId(), historyKey(jcloudsServer));
+        }
+      }
+    } catch (VimDriverException e) {
+      throw e;
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    }
+    return historyKeys;
+  }
+
+  /**
+   * Returns the {@link PollSchedule#key} of the VM. VMs booted from a volume have no image and share the "volume" key.
+   */
+  private static String historyKey(org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer) {
+    return PollSchedule.key(jcloudsServer.getImage() == null ? "volume" : jcloudsServer.getImage().getId(),
+                            jcloudsServer.getFlavor() == null ? null : jcloudsServer.getFlavor().getId());
+  }
+
+  /**
+   * Returns the VMs added, changed and deleted since the previous call for the VimInstance, and the up to date
+   * snapshot of all its VMs. The first call lists all the VMs, the following ones only the VMs nova reports as changed
+   * since the previous call.
+   */
+  public InventoryChanges<Server> syncServers(VimInstance vimInstance) throws VimDriverException {
+    Inventory<Server> inventory = serverInventories.get(ContextRegistry.identity(vimInstance));
+    if (inventory == null) {
+      serverInventories.putIfAbsent(ContextRegistry.identity(vimInstance), new Inventory<Server>() {
+        @Override
+        protected String idOf(Server server) {
+          return server.getExtId();
+        }
+
+        @Override
+        protected Date updatedOf(Server server) {
+          return server.getUpdated();
+        }
+      });
+      inventory = serverInventories.get(ContextRegistry.identity(vimInstance));
+    }
+    synchronized (inventory) {
+      Date since = inventory.getLastSync();
+      log.debug("Syncing VMs of VimInstance with name: " + vimInstance.getName() + " changed since: " + since);
+      try {
+        Date syncStart = new Date(System.currentTimeMillis() - syncClockSkew);
+        List<String> deletedIds = new ArrayList<>();
+        InventoryChanges<Server> changes =
+            inventory.update(syncStart,
+                             since == null,
+                             iterateServers(vimInstance, null, null, since, deletedIds, false),
+                             deletedIds);
+        log.info("Synced VMs of VimInstance with name: " + vimInstance.getName() + " -> " + changes);
+        return changes;
+      } catch (VimDriverException e) {
+        throw e;
+      } catch (Exception e) {
+        log.error(e.getMessage(), e);
+        throw new VimDriverException(e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Returns the images added, changed and deleted since the previous call for the VimInstance, and the up to date
+   * snapshot of all its images, like syncServers.
+   */
+  public InventoryChanges<NFVImage> syncImages(VimInstance vimInstance) throws VimDriverException {
+    Inventory<NFVImage> inventory = imageInventories.get(ContextRegistry.identity(vimInstance));
+    if (inventory == null) {
+      imageInventories.putIfAbsent(ContextRegistry.identity(vimInstance), new Inventory<NFVImage>() {
+        @Override
+        protected String idOf(NFVImage image) {
+          return image.getExtId();
+        }
+
+        @Override
+        protected Date updatedOf(NFVImage image) {
+          return image.getUpdated();
+        }
+      });
+      inventory = imageInventories.get(ContextRegistry.identity(vimInstance));
+    }
+    synchronized (inventory) {
+      Date since = inventory.getLastSync();
+      log.debug("Syncing images of VimInstance with name: " + vimInstance.getName() + " changed since: " + since);
+      try {
+        Date syncStart = new Date(System.currentTimeMillis() - syncClockSkew);
+        List<String> deletedIds = new ArrayList<>();
+        InventoryChanges<NFVImage> changes = inventory.update(syncStart,
+                                                              since == null,
+                                                              iterateImages(vimInstance, since, deletedIds, false),
+                                                              deletedIds);
+        log.info("Synced images of VimInstance with name: " + vimInstance.getName() + " -> " + changes);
+        return changes;
+      } catch (VimDriverException e) {
+        throw e;
+      } catch (Exception e) {
+        log.error(e.getMessage(), e);
+        throw new VimDriverException(e.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public List<NFVImage> listImages(final VimInstance vimInstance) throws VimDriverException {
+    return inventoryCache.getList(InventoryCache.IMAGES, vimInstance, new Callable<List<NFVImage>>() {
+      @Override
+      public List<NFVImage> call() throws Exception {
+        return fetchImages(vimInstance);
+      }
+    });
+  }
+
+  /**
+   * Lists the images of the VimInstance on the worker pool.
+   */
+  public ListenableFuture<List<NFVImage>> listImagesAsync(final VimInstance vimInstance) {
+    return executor.submit(new Callable<List<NFVImage>>() {
+      @Override
+      public List<NFVImage> call() throws VimDriverException {
+        return listImages(vimInstance);
+      }
+    });
+  }
+
+  private List<NFVImage> fetchImages(VimInstance vimInstance) throws VimDriverException {
+    log.debug("Listing images for VimInstance with name: " + vimInstance.getName());
+    try {
+      List<NFVImage> images = new ArrayList<NFVImage>();
+      Iterator<NFVImage> iterator = iterateImages(vimInstance, false);
+      while (iterator.hasNext()) {
+        images.add(iterator.next());
+      }
+      log.info("Listed images for VimInstance with name: " + vimInstance.getName() + " -> Images: " + images);
+      return images;
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    }
+  }
+
+  /**
+   * Iterates over all the images of the VimInstance, holding a single page of images in memory. With prefetch the
+   * next page is requested while the current one is consumed.
+   */
+  public Iterator<NFVImage> iterateImages(VimInstance vimInstance, boolean prefetch) throws VimDriverException {
+    return iterateImages(vimInstance, null, null, prefetch);
+  }
+
+  /**
+   * With changesSince, only the images updated since then are listed, including the deleted ones: their ids are
+   * added to deletedIds instead of being returned.
+   */
+  private Iterator<NFVImage> iterateImages(VimInstance vimInstance,
+                                           final Date changesSince,
+                                           final Collection<String> deletedIds,
+                                           boolean prefetch) throws VimDriverException {
+    try {
+      GlanceApi glanceApi = contexts.getGlanceApi(vimInstance);
+      final ImageApi imageApi = glanceApi.getImageApi(getZone(vimInstance));
+      return new PagingIterator<ImageDetails, NFVImage>(pageSize, prefetch ? executor : null) {
+        @Override
+        protected PaginatedCollection<ImageDetails> fetch(String marker, int limit) {
+          ListImageOptions listImageOptions = new ListImageOptions();
+          listImageOptions.limit(limit);
+          if (marker != null) {
+            listImageOptions.marker(marker);
+          }
+          if (changesSince != null) {
+            listImageOptions.changesSince(changesSince);
+          }
+          return imageApi.listInDetail(listImageOptions);
+        }
+
+        @Override
+        protected NFVImage convert(ImageDetails jcloudsImage) {
+          if (jcloudsImage.getStatus() == org.jclouds.openstack.glance.v1_0.domain.Image.Status.DELETED ||
+              jcloudsImage.getStatus() == org.jclouds.openstack.glance.v1_0.domain.Image.Status.PENDING_DELETE) {
+            if (deletedIds != null) {
+              deletedIds.add(jcloudsImage.getId());
+            }
+            return null;
+          }
+          log.debug("Found image: " + jcloudsImage.getName());
+          return toImage(jcloudsImage);
+        }
+
+        @Override
+        protected String idOf(ImageDetails jcloudsImage) {
+          return jcloudsImage.getId();
+        }
+      };
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    }
+  }
+
+  private NFVImage toImage(ImageDetails jcloudsImage) {
+    NFVImage image = new NFVImage();
+    image.setName(jcloudsImage.getName());
+    image.setExtId(jcloudsImage.getId());
+    image.setMinRam(jcloudsImage.getMinRam());
+    image.setMinDiskSpace(jcloudsImage.getMinDisk());
+    image.setCreated(jcloudsImage.getCreatedAt());
+    image.setUpdated(jcloudsImage.getUpdatedAt());
+    image.setIsPublic(jcloudsImage.isPublic());
+    image.setDiskFormat(jcloudsImage.getDiskFormat().toString().toUpperCase());
+    image.setContainerFormat(jcloudsImage.getContainerFormat().toString().toUpperCase());
+    return image;
+  }
+
+  @Override
+  public List<Server> listServer(VimInstance vimInstance) throws VimDriverException {
+    return listServer(vimInstance, null, null);
+  }
+
+  /**
+   * Lists the VMs of the tenant of the VimInstance on the worker pool.
+   */
+  public ListenableFuture<List<Server>> listServerAsync(final VimInstance vimInstance) {
+    return executor.submit(new Callable<List<Server>>() {
+      @Override
+      public List<Server> call() throws VimDriverException {
+        return listServer(vimInstance);
+      }
+    });
+  }
+
+  /**
+   * Lists the VMs of the tenant of the VimInstance, only the ones matching name (a regular expression) and status
+   * when they are not null. Nova applies the filters and the VMs are fetched one page at a time.
+   */
+  public List<Server> listServer(VimInstance vimInstance, String name, String status) throws VimDriverException {
+    log.debug("Listing all VMs on VimInstance with name: " +
+              vimInstance.getName() +
+              (name != null ? " with name: " + name : "") +
+              (status != null ? " with status: " + status : ""));
+    try {
+      List<Server> servers = new ArrayList<Server>();
+      Iterator<Server> iterator = iterateServers(vimInstance, name, status, false);
+      while (iterator.hasNext()) {
+        servers.add(iterator.next());
+      }
+      log.info("Listed all VMs on VimInstance with name: " + vimInstance.getName() + " -> VMs: " + servers);
+      return servers;
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    }
+  }
+
+  /**
+   * Iterates over the VMs of the tenant of the VimInstance like listServer, holding a single page of VMs in memory.
+   * With prefetch the next page is requested while the current one is consumed. Failures while iterating are thrown
+   * as IllegalStateException.
+   */
+  public Iterator<Server> iterateServers(VimInstance vimInstance,
+                                         String name,
+                                         String status,
+                                         boolean prefetch) throws VimDriverException {
+    return iterateServers(vimInstance, name, status, null, null, prefetch);
+  }
+
+  /**
+   * With changesSince, only the VMs changed since then are listed, including the deleted ones: their ids are added
+   * to deletedIds instead of being returned.
+   */
+  private Iterator<Server> iterateServers(final VimInstance vimInstance,
+                                          String name,
+                                          String status,
+                                          final Date changesSince,
+                                          final Collection<String> deletedIds,
+                                          boolean prefetch) throws VimDriverException {
+    try {
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
+      final ServerApi serverApi = novaApi.getServerApi(getZone(vimInstance));
+      final String tenantId = getTenantId(vimInstance);
+      final Multimap<String, String> filters = HashMultimap.create();
+      filters.put("tenant_id", tenantId);
+      if (name != null) {
+        filters.put("name", name);
+      }
+      if (status != null) {
+        filters.put("status", status);
+      }
+      if (changesSince != null) {
+        filters.put("changes-since", iso8601(changesSince));
+      }
+      return new PagingIterator<org.jclouds.openstack.nova.v2_0.domain.Server, Server>(pageSize,
+                                                                                         prefetch ? executor : null) {
+        private Map<String, org.jclouds.openstack.nova.v2_0.domain.Image> jcloudsImages;
+        private Map<String, org.jclouds.openstack.nova.v2_0.domain.Flavor> jcloudsFlavors;
+
+        @Override
+        protected PaginatedCollection<org.jclouds.openstack.nova.v2_0.domain.Server> fetch(String marker, int limit) {
+          PaginationOptions options = new PaginationOptions().queryParameters(filters).limit(limit);
+          if (marker != null) {
+            options.marker(marker);
+          }
+          return serverApi.listInDetail(options);
+        }
+
+        @Override
+        protected Server convert(org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer) throws
+                                                                                                VimDriverException {
+          if (!jcloudsServer.getTenantId().equals(tenantId)) {
+            return null;
+          }
+          if (jcloudsServer.getStatus() == org.jclouds.openstack.nova.v2_0.domain.Server.Status.DELETED) {
+            if (deletedIds != null) {
+              deletedIds.add(jcloudsServer.getId());
+            }
+            return null;
+          }
+          if (jcloudsImages == null && jcloudsServer.getImage() != null) {
+            jcloudsImages = listJcloudsImages(vimInstance);
+          }
+          if (jcloudsFlavors == null && jcloudsServer.getFlavor() != null) {
+            jcloudsFlavors = listJcloudsFlavors(vimInstance);
+          }
+          return toServer(vimInstance, jcloudsServer, jcloudsImages, jcloudsFlavors);
+        }
+
+        @Override
+        protected String idOf(org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer) {
+          return jcloudsServer.getId();
+        }
+      };
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    }
+  }
+
+  /**
+   * Iterates over the jclouds VMs of the tenant of the VimInstance changed since the given date, deleted ones
+   * included, or over all of them if the date is null, without converting them.
+   */
+  private Iterator<org.jclouds.openstack.nova.v2_0.domain.Server> iterateJcloudsServers(
+      VimInstance vimInstance, final Date changesSince) throws VimDriverException {
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
+    final ServerApi serverApi = novaApi.getServerApi(getZone(vimInstance));
+    final Multimap<String, String> filters = HashMultimap.create();
+    filters.put("tenant_id", getTenantId(vimInstance));
+    if (changesSince != null) {
+      filters.put("changes-since", iso8601(changesSince));
+    }
+    return new PagingIterator<org.jclouds.openstack.nova.v2_0.domain.Server,
+        org.jclouds.openstack.nova.v2_0.domain.Server>(pageSize, null) {
+      @Override
+      protected PaginatedCollection<org.jclouds.openstack.nova.v2_0.domain.Server> fetch(String marker, int limit) {
+        PaginationOptions options = new PaginationOptions().queryParameters(filters).limit(limit);
+        if (marker != null) {
+          options.marker(marker);
+        }
+        return serverApi.listInDetail(options);
+      }
+
+      @Override
+      protected org.jclouds.openstack.nova.v2_0.domain.Server convert(
+          org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer) {
+        return jcloudsServer;
+      }
+
+      @Override
+      protected String idOf(org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer) {
+        return jcloudsServer.getId();
+      }
+    };
+  }
+
+  /**
+   * Converts a jclouds server, taking its image and flavor from the given maps when they contain them.
+   */
+  private Server toServer(VimInstance vimInstance,
+                          org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer,
+                          Map<String, org.jclouds.openstack.nova.v2_0.domain.Image> jcloudsImages,
+                          Map<String, org.jclouds.openstack.nova.v2_0.domain.Flavor> jcloudsFlavors) throws
+                                                                                                    VimDriverException {
+    log.debug("Found jclouds VM: " + jcloudsServer);
+    Server server = new Server();
+    server.setExtId(jcloudsServer.getId());
+    server.setName(jcloudsServer.getName());
+    server.setStatus(jcloudsServer.getStatus().value());
+    server.setExtendedStatus(jcloudsServer.getExtendedStatus().toString());
+    HashMap<String, List<String>> ipMap = new HashMap<String, List<String>>();
+    for (String key : jcloudsServer.getAddresses().keys()) {
+      List<String> ips = new ArrayList<String>();
+      for (Address address : jcloudsServer.getAddresses().get(key)) {
+        ips.add(address.getAddr());
       }
-      try {
-        getServerById(vimInstance, extId);
-      } catch (NullPointerException e) {
-        deleteCompleted = true;
-        log.info("Deleted VM with ExtId: " + extId);
+      ipMap.put(key, ips);
+    }
+    server.setIps(ipMap);
+    server.setFloatingIps(new HashMap<String, String>());
+    server.setCreated(jcloudsServer.getCreated());
+    server.setUpdated(jcloudsServer.getUpdated());
+    Resource image = jcloudsServer.getImage();
+    if (image != null) {
+      if (jcloudsImages != null && jcloudsImages.containsKey(image.getId())) {
+        server.setImage(toImage(jcloudsImages.get(image.getId())));
+      } else {
+        server.setImage(getImageById(vimInstance, image.getId()));
+      }
+    } else {
+      log.warn("The image this server is using was deleted");
+    }
+    Resource flavor = jcloudsServer.getFlavor();
+    if (flavor != null) {
+      if (jcloudsFlavors != null && jcloudsFlavors.containsKey(flavor.getId())) {
+        server.setFlavor(toFlavor(jcloudsFlavors.get(flavor.getId())));
+      } else {
+        server.setFlavor(getFlavorById(vimInstance, flavor.getId()));
       }
+    } else {
+      log.warn("The flavor this server is using was deleted");
     }
+    log.debug("Found VM: " + server);
+    return server;
   }
 
-  @Override
-  public List<NFVImage> listImages(VimInstance vimInstance) throws VimDriverException {
-    log.debug("Listing images for VimInstance with name: " + vimInstance.getName());
-    try {
-      GlanceApi
-          glanceApi =
-          ContextBuilder.newBuilder("openstack-glance")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(GlanceApi.class);
-      ImageApi imageApi = glanceApi.getImageApi(getZone(vimInstance));
-      ListImageOptions listImageOptions = new ListImageOptions();
-      listImageOptions.limit(1000);
-      List<NFVImage> images = new ArrayList<NFVImage>();
-      for (ImageDetails jcloudsImage : imageApi.listInDetail(listImageOptions).toList()) {
-        NFVImage image = new NFVImage();
-        log.debug("Found image: " + jcloudsImage.getName());
-        image.setName(jcloudsImage.getName());
-        image.setExtId(jcloudsImage.getId());
-        image.setMinRam(jcloudsImage.getMinRam());
-        image.setMinDiskSpace(jcloudsImage.getMinDisk());
-        image.setCreated(jcloudsImage.getCreatedAt());
-        image.setUpdated(jcloudsImage.getUpdatedAt());
-        image.setIsPublic(jcloudsImage.isPublic());
-        image.setDiskFormat(jcloudsImage.getDiskFormat().toString().toUpperCase());
-        image.setContainerFormat(jcloudsImage.getContainerFormat().toString().toUpperCase());
-        images.add(image);
-      }
-      log.info("Listed images for VimInstance with name: " + vimInstance.getName() + " -> Images: " + images);
-      return images;
-    } catch (Exception e) {
-      log.error(e.getMessage(), e);
-      throw new VimDriverException(e.getMessage());
+  /**
+   * Lists the images known to nova in a single request, indexed by id, so that the images referenced by many servers
+   * do not need a request each.
+   */
+  private Map<String, org.jclouds.openstack.nova.v2_0.domain.Image> listJcloudsImages(VimInstance vimInstance) {
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
+    org.jclouds.openstack.nova.v2_0.features.ImageApi imageApi = novaApi.getImageApi(getZone(vimInstance));
+    Map<String, org.jclouds.openstack.nova.v2_0.domain.Image> images = new HashMap<>();
+    for (org.jclouds.openstack.nova.v2_0.domain.Image jcloudsImage : imageApi.listInDetail().concat()) {
+      images.put(jcloudsImage.getId(), jcloudsImage);
     }
+    log.debug("Listed " + images.size() + " images of VimInstance with name: " + vimInstance.getName());
+    return images;
   }
 
-  @Override
-  public List<Server> listServer(VimInstance vimInstance) throws VimDriverException {
-    log.debug("Listing all VMs on VimInstance with name: " + vimInstance.getName());
+  /**
+   * Lists the flavors in a single request, indexed by id.
+   */
+  private Map<String, org.jclouds.openstack.nova.v2_0.domain.Flavor> listJcloudsFlavors(VimInstance vimInstance) {
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
+    FlavorApi flavorApi = novaApi.getFlavorApi(getZone(vimInstance));
+    Map<String, org.jclouds.openstack.nova.v2_0.domain.Flavor> flavors = new HashMap<>();
+    for (org.jclouds.openstack.nova.v2_0.domain.Flavor jcloudsFlavor : flavorApi.listInDetail().concat()) {
+      flavors.put(jcloudsFlavor.getId(), jcloudsFlavor);
+    }
+    log.debug("Listed " + flavors.size() + " flavors of VimInstance with name: " + vimInstance.getName());
+    return flavors;
+  }
+
+  /**
+   * Fetches the VM without resolving its image and flavor, which is all that is needed to poll its status, or returns
+   * null if it does not exist. Nova has no way to return only some fields of a VM, so this is still the whole VM
+   * document.
+   */
+  private org.jclouds.openstack.nova.v2_0.domain.Server probeServer(VimInstance vimInstance, String extId) throws
+                                                                                                        VimDriverException {
     try {
-      List<Server> servers = new ArrayList<Server>();
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       ServerApi serverApi = novaApi.getServerApi(getZone(vimInstance));
-      String tenantId = getTenantId(vimInstance);
-      for (org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer : serverApi.listInDetail().concat()) {
-        if (jcloudsServer.getTenantId().equals(tenantId)) {
-          log.debug("Found jclouds VM: " + jcloudsServer);
-          Server server = new Server();
-          server.setExtId(jcloudsServer.getId());
-          server.setName(jcloudsServer.getName());
-          server.setStatus(jcloudsServer.getStatus().value());
-          server.setExtendedStatus(jcloudsServer.getExtendedStatus().toString());
-          HashMap<String, List<String>> ipMap = new HashMap<String, List<String>>();
-          for (String key : jcloudsServer.getAddresses().keys()) {
-            List<String> ips = new ArrayList<String>();
-            for (Address address : jcloudsServer.getAddresses().get(key)) {
-              ips.add(address.getAddr());
-            }
-            ipMap.put(key, ips);
-          }
-          server.setIps(ipMap);
-          server.setFloatingIps(new HashMap<String, String>());
-          server.setCreated(jcloudsServer.getCreated());
-          server.setUpdated(jcloudsServer.getUpdated());
-          Resource image = jcloudsServer.getImage();
-          if (image != null) {
-            server.setImage(getImageById(vimInstance, image.getId()));
-          } else {
-            log.warn("The image this server is using was deleted");
-          }
-          Resource flavor = jcloudsServer.getFlavor();
-          if (flavor != null) {
-            server.setFlavor(getFlavorById(vimInstance, flavor.getId()));
-          } else {
-            log.warn("The flavor this server is using was deleted");
-          }
-          log.debug("Found VM: " + server);
-          servers.add(server);
-        }
+      org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer = serverApi.get(extId);
+      if (jcloudsServer == null) {
+        log.debug("VM with ExtId: " + extId + " does not exist on VimInstance with name: " + vimInstance.getName());
+        return null;
       }
-      log.info("Listed all VMs on VimInstance with name: " + vimInstance.getName() + " -> VMs: " + servers);
-      return servers;
+      log.debug("Status of VM with ExtId: " +
+                extId +
+                " is " +
+                jcloudsServer.getStatus() +
+                (jcloudsServer.getExtendedStatus().isPresent() ?
+                 " (task state: " + jcloudsServer.getExtendedStatus().get().getTaskState() + ")" :
+                 ""));
+      return jcloudsServer;
     } catch (Exception e) {
       log.error(e.getMessage(), e);
       throw new VimDriverException(e.getMessage());
@@ -534,15 +1750,7 @@ public class OpenstackClient extends VimDriver {
   private Server getServerById(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Finding VM by ID: " + extId + " on VimInstance with name: " + vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       ServerApi serverApi = novaApi.getServerApi(getZone(vimInstance));
       org.jclouds.openstack.nova.v2_0.domain.Server jcloudsServer = serverApi.get(extId);
       log.debug("Found jclouds VM by ID: " +
@@ -551,37 +1759,7 @@ public class OpenstackClient extends VimDriver {
                 vimInstance.getName() +
                 " -> VM: " +
                 jcloudsServer);
-      Server server = new Server();
-      server.setExtId(jcloudsServer.getId());
-      server.setName(jcloudsServer.getName());
-      server.setStatus(jcloudsServer.getStatus().value());
-      server.setExtendedStatus(jcloudsServer.getExtendedStatus().toString());
-      HashMap<String, List<String>> ipMap = new HashMap<>();
-
-      for (String key : jcloudsServer.getAddresses().keys()) {
-        List<String> ips = new ArrayList<>();
-        for (Address address : jcloudsServer.getAddresses().get(key)) {
-          ips.add(address.getAddr());
-        }
-        ipMap.put(key, ips);
-      }
-
-      server.setIps(ipMap);
-      server.setFloatingIps(new HashMap<String, String>());
-      server.setCreated(jcloudsServer.getCreated());
-      server.setUpdated(jcloudsServer.getUpdated());
-      Resource image = jcloudsServer.getImage();
-      if (image != null) {
-        server.setImage(getImageById(vimInstance, image.getId()));
-      } else {
-        log.warn("The image this server is using was deleted");
-      }
-      Resource flavor = jcloudsServer.getFlavor();
-      if (flavor != null) {
-        server.setFlavor(getFlavorById(vimInstance, flavor.getId()));
-      } else {
-        log.warn("The flavor this server is using was deleted");
-      }
+      Server server = toServer(vimInstance, jcloudsServer, null, null);
       log.info("Found VM by ID: " +
                extId +
                " on VimInstance with name: " +
@@ -613,6 +1791,7 @@ public class OpenstackClient extends VimDriver {
                  image.getMinDiskSpace(),
                  image.getMinRam(),
                  image.isPublic());
+    inventoryCache.invalidate(InventoryCache.IMAGES, vimInstance);
     image.setName(addedImage.getName());
     image.setExtId(addedImage.getExtId());
     image.setCreated(addedImage.getCreated());
@@ -625,6 +1804,20 @@ public class OpenstackClient extends VimDriver {
     return image;
   }
 
+  /**
+   * Uploads the image to the VimInstance on the worker pool.
+   */
+  public ListenableFuture<NFVImage> addImageAsync(final VimInstance vimInstance,
+                                                  final NFVImage image,
+                                                  final byte[] imageFile) {
+    return executor.submit(new Callable<NFVImage>() {
+      @Override
+      public NFVImage call() throws VimDriverException {
+        return addImage(vimInstance, image, imageFile);
+      }
+    });
+  }
+
   private NFVImage addImage(VimInstance vimInstance,
                             String name,
                             InputStream payload,
@@ -638,15 +1831,7 @@ public class OpenstackClient extends VimDriver {
               " to VimInstance with name: " +
               vimInstance.getName());
     try {
-      GlanceApi
-          glanceApi =
-          ContextBuilder.newBuilder("openstack-glance")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(GlanceApi.class);
+      GlanceApi glanceApi = contexts.getGlanceApi(vimInstance);
       ImageApi imageApi = glanceApi.getImageApi(getZone(vimInstance));
       CreateImageOptions createImageOptions = new CreateImageOptions();
       createImageOptions.minDisk(minDisk);
@@ -706,6 +1891,7 @@ public class OpenstackClient extends VimDriver {
                  image.getMinDiskSpace(),
                  image.getMinRam(),
                  image.isPublic());
+    inventoryCache.invalidate(InventoryCache.IMAGES, vimInstance);
     image.setName(addedImage.getName());
     image.setExtId(addedImage.getExtId());
     image.setCreated(addedImage.getCreated());
@@ -718,6 +1904,20 @@ public class OpenstackClient extends VimDriver {
     return image;
   }
 
+  /**
+   * Registers the image located at the url on the VimInstance on the worker pool.
+   */
+  public ListenableFuture<NFVImage> addImageAsync(final VimInstance vimInstance,
+                                                  final NFVImage image,
+                                                  final String image_url) {
+    return executor.submit(new Callable<NFVImage>() {
+      @Override
+      public NFVImage call() throws VimDriverException {
+        return addImage(vimInstance, image, image_url);
+      }
+    });
+  }
+
   private NFVImage addImage(VimInstance vimInstance,
                             String name,
                             String image_url,
@@ -731,15 +1931,7 @@ public class OpenstackClient extends VimDriver {
               " to VimInstance with name: " +
               vimInstance.getName());
     try {
-      GlanceApi
-          glanceApi =
-          ContextBuilder.newBuilder("openstack-glance")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(GlanceApi.class);
+      GlanceApi glanceApi = contexts.getGlanceApi(vimInstance);
       ImageApi imageApi = glanceApi.getImageApi(getZone(vimInstance));
       CreateImageOptions createImageOptions = new CreateImageOptions();
       createImageOptions.minDisk(minDisk);
@@ -784,17 +1976,10 @@ public class OpenstackClient extends VimDriver {
               ") from VimInstance with name: " +
               vimInstance.getName());
     try {
-      GlanceApi
-          glanceApi =
-          ContextBuilder.newBuilder("openstack-glance")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(GlanceApi.class);
+      GlanceApi glanceApi = contexts.getGlanceApi(vimInstance);
       ImageApi imageApi = glanceApi.getImageApi(getZone(vimInstance));
       boolean isDeleted = imageApi.delete(image.getExtId());
+      inventoryCache.invalidate(InventoryCache.IMAGES, vimInstance);
       log.info("Deleted Image with name: " +
                image.getName() +
                " (ExtId: " +
@@ -820,6 +2005,7 @@ public class OpenstackClient extends VimDriver {
                     image.getMinDiskSpace(),
                     image.getMinRam(),
                     image.isPublic());
+    inventoryCache.invalidate(InventoryCache.IMAGES, vimInstance);
     image.setName(updatedImage.getName());
     image.setExtId(updatedImage.getExtId());
     image.setCreated(updatedImage.getCreated());
@@ -847,15 +2033,7 @@ public class OpenstackClient extends VimDriver {
               ") on VimInstance with name: " +
               vimInstance.getName());
     try {
-      GlanceApi
-          glanceApi =
-          ContextBuilder.newBuilder("openstack-glance")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(GlanceApi.class);
+      GlanceApi glanceApi = contexts.getGlanceApi(vimInstance);
       ImageApi imageApi = glanceApi.getImageApi(getZone(vimInstance));
       UpdateImageOptions updateImageOptions = new UpdateImageOptions();
       updateImageOptions.name(name);
@@ -902,6 +2080,7 @@ public class OpenstackClient extends VimDriver {
                   image.getMinDiskSpace(),
                   image.getMinRam(),
                   image.isPublic());
+    inventoryCache.invalidate(InventoryCache.IMAGES, vimInstance);
     image.setName(copiedImage.getName());
     image.setExtId(copiedImage.getExtId());
     image.setCreated(copiedImage.getCreated());
@@ -923,15 +2102,7 @@ public class OpenstackClient extends VimDriver {
                              long minRam,
                              boolean isPublic) throws VimDriverException {
     try {
-      GlanceApi
-          glanceApi =
-          ContextBuilder.newBuilder("openstack-glance")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(GlanceApi.class);
+      GlanceApi glanceApi = contexts.getGlanceApi(vimInstance);
       ImageApi imageApi = glanceApi.getImageApi(getZone(vimInstance));
       NFVImage image = addImage(vimInstance, name, inputStream, diskFormat, containerFormat, minDisk, minRam, isPublic);
       return image;
@@ -941,30 +2112,22 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
-  private NFVImage getImageById(VimInstance vimInstance, String extId) throws VimDriverException {
+  private NFVImage getImageById(final VimInstance vimInstance, final String extId) throws VimDriverException {
+    return inventoryCache.get(InventoryCache.IMAGES, vimInstance, extId, new Callable<NFVImage>() {
+      @Override
+      public NFVImage call() throws Exception {
+        return fetchImageById(vimInstance, extId);
+      }
+    });
+  }
+
+  private NFVImage fetchImageById(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Finding Image by ExtId: " + extId);
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       org.jclouds.openstack.nova.v2_0.features.ImageApi imageApi = novaApi.getImageApi(getZone(vimInstance));
       org.jclouds.openstack.nova.v2_0.domain.Image jcloudsImage = imageApi.get(extId);
-      NFVImage image = new NFVImage();
-      image.setExtId(jcloudsImage.getId());
-      image.setName(jcloudsImage.getName());
-      image.setCreated(jcloudsImage.getCreated());
-      image.setUpdated(jcloudsImage.getUpdated());
-      image.setMinDiskSpace(jcloudsImage.getMinDisk());
-      image.setMinRam(jcloudsImage.getMinRam());
-      image.setIsPublic(false);
-      image.setContainerFormat("not provided");
-      image.setDiskFormat("not provided");
+      NFVImage image = toImage(jcloudsImage);
       log.info("Found Image by ExtId: " + extId + " -> Image: " + image);
       return image;
     } catch (NullPointerException e) {
@@ -978,11 +2141,26 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
+  private NFVImage toImage(org.jclouds.openstack.nova.v2_0.domain.Image jcloudsImage) {
+    NFVImage image = new NFVImage();
+    image.setExtId(jcloudsImage.getId());
+    image.setName(jcloudsImage.getName());
+    image.setCreated(jcloudsImage.getCreated());
+    image.setUpdated(jcloudsImage.getUpdated());
+    image.setMinDiskSpace(jcloudsImage.getMinDisk());
+    image.setMinRam(jcloudsImage.getMinRam());
+    image.setIsPublic(false);
+    image.setContainerFormat("not provided");
+    image.setDiskFormat("not provided");
+    return image;
+  }
+
   @Override
   public DeploymentFlavour addFlavor(VimInstance vimInstance, DeploymentFlavour flavor) throws VimDriverException {
     DeploymentFlavour
         addedFlavor =
         addFlavor(vimInstance, flavor.getFlavour_key(), flavor.getVcpus(), flavor.getRam(), flavor.getDisk());
+    inventoryCache.invalidate(InventoryCache.FLAVORS, vimInstance);
     flavor.setExtId(addedFlavor.getExtId());
     flavor.setFlavour_key(addedFlavor.getFlavour_key());
     flavor.setVcpus(addedFlavor.getVcpus());
@@ -995,15 +2173,7 @@ public class OpenstackClient extends VimDriver {
                                                                                                           VimDriverException {
     log.debug("Adding Flavor with name: " + name + " to VimInstance with name: " + vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       FlavorApi flavorApi = novaApi.getFlavorApi(getZone(vimInstance));
       UUID id = java.util.UUID.randomUUID();
       org.jclouds.openstack.nova.v2_0.domain.Flavor
@@ -1045,6 +2215,7 @@ public class OpenstackClient extends VimDriver {
                      flavor.getVcpus(),
                      flavor.getRam(),
                      flavor.getDisk());
+    inventoryCache.invalidate(InventoryCache.FLAVORS, vimInstance);
     flavor.setFlavour_key(updatedFlavor.getFlavour_key());
     flavor.setExtId(updatedFlavor.getExtId());
     flavor.setRam(updatedFlavor.getRam());
@@ -1061,15 +2232,7 @@ public class OpenstackClient extends VimDriver {
                                          int disk) throws VimDriverException {
     log.debug("Updating Flavor with name: " + name + " on VimInstance with name: " + vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       FlavorApi flavorApi = novaApi.getFlavorApi(getZone(vimInstance));
       boolean isDeleted = deleteFlavor(vimInstance, extId);
       if (isDeleted) {
@@ -1111,20 +2274,13 @@ public class OpenstackClient extends VimDriver {
   public boolean deleteFlavor(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Deleting Flavor with ExtId: " + extId + " from VimInstance with name: " + vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       FlavorApi flavorApi = novaApi.getFlavorApi(getZone(vimInstance));
       flavorApi.delete(extId);
+      inventoryCache.invalidate(InventoryCache.FLAVORS, vimInstance);
       boolean isDeleted;
       try {
-        DeploymentFlavour flavour = getFlavorById(vimInstance, extId);
+        DeploymentFlavour flavour = fetchFlavorById(vimInstance, extId);
         if (flavour.getFlavour_key() == null) {
           throw new NullPointerException();
         }
@@ -1141,26 +2297,22 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
-  private DeploymentFlavour getFlavorById(VimInstance vimInstance, String extId) throws VimDriverException {
+  private DeploymentFlavour getFlavorById(final VimInstance vimInstance, final String extId) throws VimDriverException {
+    return inventoryCache.get(InventoryCache.FLAVORS, vimInstance, extId, new Callable<DeploymentFlavour>() {
+      @Override
+      public DeploymentFlavour call() throws Exception {
+        return fetchFlavorById(vimInstance, extId);
+      }
+    });
+  }
+
+  private DeploymentFlavour fetchFlavorById(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Finding Flavor with ExtId: " + extId + " on VimInstance with name: " + vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       FlavorApi flavorApi = novaApi.getFlavorApi(getZone(vimInstance));
       org.jclouds.openstack.nova.v2_0.domain.Flavor jcloudsFlavor = flavorApi.get(extId);
-      DeploymentFlavour flavor = new DeploymentFlavour();
-      flavor.setFlavour_key(jcloudsFlavor.getName());
-      flavor.setExtId(jcloudsFlavor.getId());
-      flavor.setRam(jcloudsFlavor.getRam());
-      flavor.setDisk(jcloudsFlavor.getDisk());
-      flavor.setVcpus(jcloudsFlavor.getVcpus());
+      DeploymentFlavour flavor = toFlavor(jcloudsFlavor);
       log.info("Found Flavor with ExtId: " + extId + " on VimInstance with name: " + vimInstance.getName());
       return flavor;
     } catch (NullPointerException e) {
@@ -1178,19 +2330,42 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
+  private DeploymentFlavour toFlavor(org.jclouds.openstack.nova.v2_0.domain.Flavor jcloudsFlavor) {
+    DeploymentFlavour flavor = new DeploymentFlavour();
+    flavor.setFlavour_key(jcloudsFlavor.getName());
+    flavor.setExtId(jcloudsFlavor.getId());
+    flavor.setRam(jcloudsFlavor.getRam());
+    flavor.setDisk(jcloudsFlavor.getDisk());
+    flavor.setVcpus(jcloudsFlavor.getVcpus());
+    return flavor;
+  }
+
   @Override
-  public List<DeploymentFlavour> listFlavors(VimInstance vimInstance) throws VimDriverException {
+  public List<DeploymentFlavour> listFlavors(final VimInstance vimInstance) throws VimDriverException {
+    return inventoryCache.getList(InventoryCache.FLAVORS, vimInstance, new Callable<List<DeploymentFlavour>>() {
+      @Override
+      public List<DeploymentFlavour> call() throws Exception {
+        return fetchFlavors(vimInstance);
+      }
+    });
+  }
+
+  /**
+   * Lists the flavors of the VimInstance on the worker pool.
+   */
+  public ListenableFuture<List<DeploymentFlavour>> listFlavorsAsync(final VimInstance vimInstance) {
+    return executor.submit(new Callable<List<DeploymentFlavour>>() {
+      @Override
+      public List<DeploymentFlavour> call() throws VimDriverException {
+        return listFlavors(vimInstance);
+      }
+    });
+  }
+
+  private List<DeploymentFlavour> fetchFlavors(VimInstance vimInstance) throws VimDriverException {
     log.debug("Listing Flavours on VimInstance with name: " + vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       FlavorApi flavorApi = novaApi.getFlavorApi(getZone(vimInstance));
       List<DeploymentFlavour> flavors = new ArrayList<DeploymentFlavour>();
       for (org.jclouds.openstack.nova.v2_0.domain.Flavor jcloudsFlavor : flavorApi.listInDetail().concat()) {
@@ -1212,9 +2387,48 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
+  /**
+   * Iterates over the flavors of the VimInstance, holding a single page of flavors in memory. With prefetch the next
+   * page is requested while the current one is consumed.
+   */
+  public Iterator<DeploymentFlavour> iterateFlavors(VimInstance vimInstance, boolean prefetch) throws
+                                                                                               VimDriverException {
+    try {
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
+      final FlavorApi flavorApi = novaApi.getFlavorApi(getZone(vimInstance));
+      return new PagingIterator<org.jclouds.openstack.nova.v2_0.domain.Flavor, DeploymentFlavour>(pageSize,
+                                                                                                   prefetch ?
+                                                                                                   executor :
+                                                                                                   null) {
+        @Override
+        protected PaginatedCollection<org.jclouds.openstack.nova.v2_0.domain.Flavor> fetch(String marker, int limit) {
+          PaginationOptions options = new PaginationOptions().limit(limit);
+          if (marker != null) {
+            options.marker(marker);
+          }
+          return flavorApi.listInDetail(options);
+        }
+
+        @Override
+        protected DeploymentFlavour convert(org.jclouds.openstack.nova.v2_0.domain.Flavor jcloudsFlavor) {
+          return toFlavor(jcloudsFlavor);
+        }
+
+        @Override
+        protected String idOf(org.jclouds.openstack.nova.v2_0.domain.Flavor jcloudsFlavor) {
+          return jcloudsFlavor.getId();
+        }
+      };
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    }
+  }
+
   @Override
   public Network createNetwork(VimInstance vimInstance, Network network) throws VimDriverException {
     Network createdNetwork = createNetwork(vimInstance, network.getName(), network.getExternal(), network.getShared());
+    inventoryCache.invalidate(InventoryCache.NETWORKS, vimInstance);
     network.setName(createdNetwork.getName());
     network.setExtId(createdNetwork.getExtId());
     network.setExternal(createdNetwork.getExternal());
@@ -1227,15 +2441,7 @@ public class OpenstackClient extends VimDriver {
     log.debug("Creating Network with name: " + name + " on VimInstance with name: " + vimInstance.getName());
     org.jclouds.openstack.neutron.v2.domain.Network jcloudsNetwork;
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       NetworkApi networkApi = neutronApi.getNetworkApi(getZone(vimInstance));
       //CreateNetwork createNetwork = CreateNetwork.createBuilder(name).networkType(NetworkType.fromValue
       // (networkType)).external(external).shared(shared).segmentationId(segmentationId).physicalNetworkName
@@ -1279,6 +2485,7 @@ public class OpenstackClient extends VimDriver {
     Network
         updatedNetwork =
         updateNetwork(vimInstance, network.getExtId(), network.getName(), network.getExternal(), network.getShared());
+    inventoryCache.invalidate(InventoryCache.NETWORKS, vimInstance);
     network.setName(updatedNetwork.getName());
     network.setExtId(updatedNetwork.getExtId());
     network.setExternal(updatedNetwork.getExternal());
@@ -1293,15 +2500,7 @@ public class OpenstackClient extends VimDriver {
                                 boolean shared) throws VimDriverException {
     log.debug("Updating Network with name: " + name + " on VimInstance with name: " + vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       NetworkApi networkApi = neutronApi.getNetworkApi(getZone(vimInstance));
       //Plugin does not support updating provider attributes. -> NetworkType, SegmentationId, physicalNetworkName
       UpdateNetwork updateNetwork = UpdateNetwork.updateBuilder().name(name).build();
@@ -1332,17 +2531,10 @@ public class OpenstackClient extends VimDriver {
   public boolean deleteNetwork(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Deleting Network with ExtId: " + extId + " from VimInstance with name: " + vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       NetworkApi networkApi = neutronApi.getNetworkApi(getZone(vimInstance));
       boolean isDeleted = networkApi.delete(extId);
+      inventoryCache.invalidate(InventoryCache.NETWORKS, vimInstance);
       if (isDeleted == true) {
         log.debug("Deleted Network with ExtId: " + extId + " from VimInstance with name: " + vimInstance.getName());
       } else {
@@ -1356,18 +2548,19 @@ public class OpenstackClient extends VimDriver {
   }
 
   @Override
-  public Network getNetworkById(VimInstance vimInstance, String extId) throws VimDriverException {
+  public Network getNetworkById(final VimInstance vimInstance, final String extId) throws VimDriverException {
+    return inventoryCache.get(InventoryCache.NETWORKS, vimInstance, extId, new Callable<Network>() {
+      @Override
+      public Network call() throws Exception {
+        return fetchNetworkById(vimInstance, extId);
+      }
+    });
+  }
+
+  private Network fetchNetworkById(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Finding Network with ExtId: " + extId + " on VimInstance with name: " + vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       NetworkApi networkApi = neutronApi.getNetworkApi(getZone(vimInstance));
       org.jclouds.openstack.neutron.v2.domain.Network jcloudsNetwork = networkApi.get(extId);
       Network network = new Network();
@@ -1405,15 +2598,7 @@ public class OpenstackClient extends VimDriver {
               " from VimInstance with name: " +
               vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       NetworkApi networkApi = neutronApi.getNetworkApi(getZone(vimInstance));
       List<String> subnets = new ArrayList<String>();
       org.jclouds.openstack.neutron.v2.domain.Network jcloudsNetwork = networkApi.get(extId);
@@ -1438,37 +2623,43 @@ public class OpenstackClient extends VimDriver {
   }
 
   @Override
-  public List<Network> listNetworks(VimInstance vimInstance) throws VimDriverException {
+  public List<Network> listNetworks(final VimInstance vimInstance) throws VimDriverException {
+    return inventoryCache.getList(InventoryCache.NETWORKS, vimInstance, new Callable<List<Network>>() {
+      @Override
+      public List<Network> call() throws Exception {
+        return fetchNetworks(vimInstance);
+      }
+    });
+  }
+
+  /**
+   * Lists the networks of the VimInstance on the worker pool.
+   */
+  public ListenableFuture<List<Network>> listNetworksAsync(final VimInstance vimInstance) {
+    return executor.submit(new Callable<List<Network>>() {
+      @Override
+      public List<Network> call() throws VimDriverException {
+        return listNetworks(vimInstance);
+      }
+    });
+  }
+
+  private List<Network> fetchNetworks(VimInstance vimInstance) throws VimDriverException {
     log.debug("Listing all Networks of VimInstance with name: " + vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       List<Network> networks = new ArrayList<Network>();
       String tenantId = getTenantId(vimInstance);
+      Map<String, List<org.jclouds.openstack.neutron.v2.domain.Subnet>> jcloudsSubnets = null;
       for (org.jclouds.openstack.neutron.v2.domain.Network jcloudsNetwork : neutronApi.getNetworkApi(getZone
                                                                                                          (vimInstance))
                                                                                       .list()
                                                                                       .concat()) {
         if (jcloudsNetwork.getTenantId().equals(tenantId) || jcloudsNetwork.getShared()) {
-          log.debug("Found jclouds Network: " + jcloudsNetwork);
-          Network network = new Network();
-          network.setName(jcloudsNetwork.getName());
-          network.setExtId(jcloudsNetwork.getId());
-          network.setExternal(jcloudsNetwork.getExternal());
-          network.setShared(jcloudsNetwork.getShared());
-          network.setSubnets(new HashSet<Subnet>());
-          for (String subnetId : jcloudsNetwork.getSubnets()) {
-            network.getSubnets().add(getSubnetById(vimInstance, subnetId));
+          if (jcloudsSubnets == null && !jcloudsNetwork.getSubnets().isEmpty()) {
+            jcloudsSubnets = listJcloudsSubnets(vimInstance);
           }
-          log.debug("Found Network: " + network);
-          networks.add(network);
+          networks.add(toNetwork(vimInstance, jcloudsNetwork, jcloudsSubnets));
         }
       }
       log.info("Listed all Networks of VimInstance with name: " + vimInstance.getName() + " -> Networks: " + networks);
@@ -1479,27 +2670,119 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
+  /**
+   * Iterates over the networks of the tenant of the VimInstance and the shared ones, holding a single page of
+   * networks in memory. With prefetch the next page is requested while the current one is consumed.
+   */
+  public Iterator<Network> iterateNetworks(final VimInstance vimInstance, boolean prefetch) throws VimDriverException {
+    try {
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
+      final NetworkApi networkApi = neutronApi.getNetworkApi(getZone(vimInstance));
+      final String tenantId = getTenantId(vimInstance);
+      return new PagingIterator<org.jclouds.openstack.neutron.v2.domain.Network, Network>(pageSize,
+                                                                                          prefetch ? executor : null) {
+        private Map<String, List<org.jclouds.openstack.neutron.v2.domain.Subnet>> jcloudsSubnets;
+
+        @Override
+        protected PaginatedCollection<org.jclouds.openstack.neutron.v2.domain.Network> fetch(String marker,
+                                                                                               int limit) {
+          PaginationOptions options = new PaginationOptions().limit(limit);
+          if (marker != null) {
+            options.marker(marker);
+          }
+          return networkApi.list(options);
+        }
+
+        @Override
+        protected Network convert(org.jclouds.openstack.neutron.v2.domain.Network jcloudsNetwork) throws
+                                                                                                 VimDriverException {
+          if (!jcloudsNetwork.getTenantId().equals(tenantId) && !jcloudsNetwork.getShared()) {
+            return null;
+          }
+          if (jcloudsSubnets == null && !jcloudsNetwork.getSubnets().isEmpty()) {
+            jcloudsSubnets = listJcloudsSubnets(vimInstance);
+          }
+          return toNetwork(vimInstance, jcloudsNetwork, jcloudsSubnets);
+        }
+
+        @Override
+        protected String idOf(org.jclouds.openstack.neutron.v2.domain.Network jcloudsNetwork) {
+          return jcloudsNetwork.getId();
+        }
+      };
+    } catch (Exception e) {
+      log.error(e.getMessage(), e);
+      throw new VimDriverException(e.getMessage());
+    }
+  }
+
+  /**
+   * Converts a jclouds network, taking its subnets from the given subnets grouped by network id when they contain
+   * them.
+   */
+  private Network toNetwork(VimInstance vimInstance,
+                            org.jclouds.openstack.neutron.v2.domain.Network jcloudsNetwork,
+                            Map<String, List<org.jclouds.openstack.neutron.v2.domain.Subnet>> jcloudsSubnets) throws
+                                                                                                      VimDriverException {
+    log.debug("Found jclouds Network: " + jcloudsNetwork);
+    Network network = new Network();
+    network.setName(jcloudsNetwork.getName());
+    network.setExtId(jcloudsNetwork.getId());
+    network.setExternal(jcloudsNetwork.getExternal());
+    network.setShared(jcloudsNetwork.getShared());
+    network.setSubnets(new HashSet<Subnet>());
+    Set<String> subnetIds = new HashSet<>(jcloudsNetwork.getSubnets());
+    if (jcloudsSubnets != null && jcloudsSubnets.containsKey(jcloudsNetwork.getId())) {
+      for (org.jclouds.openstack.neutron.v2.domain.Subnet jcloudsSubnet : jcloudsSubnets.get(jcloudsNetwork.getId())) {
+        if (subnetIds.remove(jcloudsSubnet.getId())) {
+          network.getSubnets().add(toSubnet(jcloudsSubnet));
+        }
+      }
+    }
+    for (String subnetId : subnetIds) {
+      network.getSubnets().add(getSubnetById(vimInstance, subnetId));
+    }
+    log.debug("Found Network: " + network);
+    return network;
+  }
+
+  /**
+   * Lists all the subnets visible to the tenant in a single pass, grouped by the id of their network.
+   */
+  private Map<String, List<org.jclouds.openstack.neutron.v2.domain.Subnet>> listJcloudsSubnets(VimInstance vimInstance) {
+    NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
+    SubnetApi subnetApi = neutronApi.getSubnetApi(getZone(vimInstance));
+    Map<String, List<org.jclouds.openstack.neutron.v2.domain.Subnet>> subnets = new HashMap<>();
+    for (org.jclouds.openstack.neutron.v2.domain.Subnet jcloudsSubnet : subnetApi.list().concat()) {
+      List<org.jclouds.openstack.neutron.v2.domain.Subnet> networkSubnets = subnets.get(jcloudsSubnet.getNetworkId());
+      if (networkSubnets == null) {
+        networkSubnets = new ArrayList<>();
+        subnets.put(jcloudsSubnet.getNetworkId(), networkSubnets);
+      }
+      networkSubnets.add(jcloudsSubnet);
+    }
+    log.debug("Listed subnets of " + subnets.size() + " networks of VimInstance with name: " + vimInstance.getName());
+    return subnets;
+  }
+
+  private Subnet toSubnet(org.jclouds.openstack.neutron.v2.domain.Subnet jcloudsSubnet) {
+    Subnet subnet = new Subnet();
+    subnet.setExtId(jcloudsSubnet.getId());
+    subnet.setName(jcloudsSubnet.getName());
+    subnet.setCidr(jcloudsSubnet.getCidr());
+    subnet.setGatewayIp(jcloudsSubnet.getGatewayIp());
+    subnet.setNetworkId(jcloudsSubnet.getNetworkId());
+    return subnet;
+  }
+
   private Subnet getSubnetById(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Getting Subnet with extId: " + extId + " from VimInstance with name: " + vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       SubnetApi subnetApi = neutronApi.getSubnetApi(getZone(vimInstance));
       org.jclouds.openstack.neutron.v2.domain.Subnet jcloudsSubnet = subnetApi.get(extId);
       log.debug("Got jclouds Subnet: " + jcloudsSubnet);
-      Subnet subnet = new Subnet();
-      subnet.setExtId(jcloudsSubnet.getId());
-      subnet.setName(jcloudsSubnet.getName());
-      subnet.setCidr(jcloudsSubnet.getCidr());
-      subnet.setGatewayIp(jcloudsSubnet.getGatewayIp());
-      subnet.setNetworkId(jcloudsSubnet.getNetworkId());
+      Subnet subnet = toSubnet(jcloudsSubnet);
       log.info("Found Subnet with extId: " +
                extId +
                " on VimInstance with name: " +
@@ -1516,6 +2799,7 @@ public class OpenstackClient extends VimDriver {
   @Override
   public Subnet createSubnet(VimInstance vimInstance, Network network, Subnet subnet) throws VimDriverException {
     Subnet createdSubnet = createSubnet(vimInstance, network, subnet.getName(), subnet.getCidr());
+    inventoryCache.invalidate(InventoryCache.NETWORKS, vimInstance);
     subnet.setExtId(createdSubnet.getExtId());
     subnet.setName(createdSubnet.getName());
     subnet.setCidr(createdSubnet.getCidr());
@@ -1532,15 +2816,7 @@ public class OpenstackClient extends VimDriver {
               " on VimInstance with name: " +
               vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       SubnetApi subnetApi = neutronApi.getSubnetApi(getZone(vimInstance));
       CreateSubnet
           createSubnet =
@@ -1584,6 +2860,7 @@ public class OpenstackClient extends VimDriver {
   @Override
   public Subnet updateSubnet(VimInstance vimInstance, Network network, Subnet subnet) throws VimDriverException {
     Subnet updatedSubnet = updateSubnet(vimInstance, network, subnet.getExtId(), subnet.getName());
+    inventoryCache.invalidate(InventoryCache.NETWORKS, vimInstance);
     subnet.setExtId(updatedSubnet.getExtId());
     subnet.setName(updatedSubnet.getName());
     subnet.setCidr(updatedSubnet.getCidr());
@@ -1600,15 +2877,7 @@ public class OpenstackClient extends VimDriver {
               " on VimInstance with name: " +
               vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       SubnetApi subnetApi = neutronApi.getSubnetApi(getZone(vimInstance));
       UpdateSubnet updateSubnet = UpdateSubnet.updateBuilder().name(name).build();
       org.jclouds.openstack.neutron.v2.domain.Subnet jcloudsSubnet = subnetApi.update(subnetExtId, updateSubnet);
@@ -1636,15 +2905,7 @@ public class OpenstackClient extends VimDriver {
     log.debug("Finding a Router that is connected with external Network on VimInstance with name: " +
               vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
 
       RouterApi routerApi = neutronApi.getRouterApi(getZone(vimInstance)).get();
       PagedIterable routerList = routerApi.list();
@@ -1678,15 +2939,7 @@ public class OpenstackClient extends VimDriver {
     log.debug("Creating a Router that is connected with external Network on VimInstance with name: " +
               vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       RouterApi routerApi = neutronApi.getRouterApi(getZone(vimInstance)).get();
       //Find external network
       String externalNetId = null;
@@ -1733,15 +2986,7 @@ public class OpenstackClient extends VimDriver {
               " on VimInstnace with name: " +
               vimInstance);
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       RouterApi routerApi = neutronApi.getRouterApi(getZone(vimInstance)).get();
       RouterInterface routerInterface = routerApi.addInterfaceForPort(routerId, portId);
       log.info("Attached Port with ExtId: " +
@@ -1765,15 +3010,7 @@ public class OpenstackClient extends VimDriver {
               " on VimInstance with name: " +
               vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       PortApi portApi = neutronApi.getPortApi(getZone(vimInstance));
       Port.CreatePort
           createPort =
@@ -1801,17 +3038,10 @@ public class OpenstackClient extends VimDriver {
   public boolean deleteSubnet(VimInstance vimInstance, String extId) throws VimDriverException {
     log.debug("Deleting Subnet with ExtId: " + extId + " from VimInstance with name: " + vimInstance.getName());
     try {
-      NeutronApi
-          neutronApi =
-          ContextBuilder.newBuilder("openstack-neutron")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NeutronApi.class);
+      NeutronApi neutronApi = contexts.getNeutronApi(vimInstance);
       SubnetApi subnetApi = neutronApi.getSubnetApi(getZone(vimInstance));
       boolean isDeleted = subnetApi.delete(extId);
+      inventoryCache.invalidate(InventoryCache.NETWORKS, vimInstance);
       if (isDeleted == true) {
         log.info("Deleted Subnet with ExtId: " + extId + " from VimInstance with name: " + vimInstance.getName());
       } else {
@@ -1824,18 +3054,13 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
-  private List<String> listFreeFloatingIps(VimInstance vimInstance) throws VimDriverException {
-    log.debug("Listing all free FloatingIPs of VimInstance with name: " + vimInstance.getName());
+  /**
+   * Lists the floating ips of the pool that are allocated to the tenant and not assigned to any VM.
+   */
+  private List<String> listFreeFloatingIps(VimInstance vimInstance, String pool) throws VimDriverException {
+    log.debug("Listing all free FloatingIPs of pool " + pool + " of VimInstance with name: " + vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       if (novaApi.getFloatingIPApi(getZone(vimInstance)).isPresent()) {
         org.jclouds.openstack.nova.v2_0.extensions.FloatingIPApi
             floatingIPApi =
@@ -1844,7 +3069,7 @@ public class OpenstackClient extends VimDriver {
         Iterator<FloatingIP> floatingIpIterator = floatingIPApi.list().iterator();
         while (floatingIpIterator.hasNext()) {
           FloatingIP floatingIP = floatingIpIterator.next();
-          if (floatingIP.getInstanceId() == null) {
+          if (floatingIP.getInstanceId() == null && (pool == null || pool.equals(floatingIP.getPool()))) {
             floatingIPs.add(floatingIP.getIp());
           }
         }
@@ -1860,39 +3085,24 @@ public class OpenstackClient extends VimDriver {
                  */
 
         URI endpoint = null;
-        ContextBuilder
-            contextBuilder =
-            ContextBuilder.newBuilder("openstack-nova")
-                          .credentials(vimInstance.getUsername(), vimInstance.getPassword())
-                          .endpoint(vimInstance.getAuthUrl());
-        ComputeServiceContext context = contextBuilder.buildView(ComputeServiceContext.class);
-        Function<Credentials, Access>
-            auth =
-            context.utils().injector().getInstance(Key.get(new TypeLiteral<Function<Credentials, Access>>() {
-            }));
-
-        Access
-            access =
-            auth.apply(new Credentials.Builder<Credentials>().identity(vimInstance.getTenant() +
-                                                                       ":" +
-                                                                       vimInstance.getUsername())
-                                                             .credential(vimInstance.getPassword())
-                                                             .build());
+        Access access = accessCache.get(vimInstance);
 
         log.debug("listing FloatingIPs: finding endpoint");
-        for (org.jclouds.openstack.keystone.v2_0.domain.Service service : access) {
-          if (service.getName().equals("neutron")) {
-            for (Endpoint end : service) {
-              endpoint = end.getPublicURL();
-              break;
-            }
-            break;
+        endpoint = getEndpoint(vimInstance, "network", "neutron");
+
+        String query = "";
+        if (pool != null) {
+          JsonArray networks =
+              getNeutronList(access, endpoint, "networks", "name=" + URLEncoder.encode(pool, "UTF-8"));
+          if (networks.size() == 0) {
+            throw new VimDriverException("Not found the network of floating ip pool: " + pool);
           }
+          String networkId = networks.get(0).getAsJsonObject().get("id").getAsString();
+          query = "?floating_network_id=" + URLEncoder.encode(networkId, "UTF-8");
         }
-
         HttpURLConnection connection = null;
-        URL url = new URL(endpoint + "/v2.0/floatingips.json");
-        connection = (HttpURLConnection) url.openConnection();
+        URL url = new URL(endpoint + "/v2.0/floatingips.json" + query);
+        connection = openConnection(url);
         connection.setRequestMethod("GET");
         connection.setDoOutput(true);
         connection.setRequestProperty("Accept", "application/json");
@@ -1951,15 +3161,7 @@ public class OpenstackClient extends VimDriver {
               " on VimInstance with name: " +
               vimInstance.getName());
     try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
       org.jclouds.openstack.nova.v2_0.extensions.FloatingIPApi
           floatingIPApi =
           novaApi.getFloatingIPApi(getZone(vimInstance)).get();
@@ -1984,24 +3186,7 @@ public class OpenstackClient extends VimDriver {
               " on VimInstance with name: " +
               vimInstance.getName());
     try {
-      ContextBuilder
-          contextBuilder =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .credentials(vimInstance.getUsername(), vimInstance.getPassword())
-                        .endpoint(vimInstance.getAuthUrl());
-      ComputeServiceContext context = contextBuilder.buildView(ComputeServiceContext.class);
-      Function<Credentials, Access>
-          auth =
-          context.utils().injector().getInstance(Key.get(new TypeLiteral<Function<Credentials, Access>>() {
-          }));
-      //Get Access and all information
-      Access
-          access =
-          auth.apply(new Credentials.Builder<Credentials>().identity(vimInstance.getTenant() +
-                                                                     ":" +
-                                                                     vimInstance.getUsername())
-                                                           .credential(vimInstance.getPassword())
-                                                           .build());
+      Access access = accessCache.get(vimInstance);
       //Get Tenant ID of user
       String tenant_id = access.getToken().getTenant().get().getId();
       log.info("Found TenantID for Tenant with name: " +
@@ -2026,41 +3211,15 @@ public class OpenstackClient extends VimDriver {
     HttpURLConnection connection = null;
     try {
       Quota quota = new Quota();
-      ContextBuilder
-          contextBuilder =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .credentials(vimInstance.getUsername(), vimInstance.getPassword())
-                        .endpoint(vimInstance.getAuthUrl());
-      ComputeServiceContext context = contextBuilder.buildView(ComputeServiceContext.class);
-      Function<Credentials, Access>
-          auth =
-          context.utils().injector().getInstance(Key.get(new TypeLiteral<Function<Credentials, Access>>() {
-          }));
-      //Get Access and all information
-      Access
-          access =
-          auth.apply(new Credentials.Builder<Credentials>().identity(vimInstance.getTenant() +
-                                                                     ":" +
-                                                                     vimInstance.getUsername())
-                                                           .credential(vimInstance.getPassword())
-                                                           .build());
+      Access access = accessCache.get(vimInstance);
       //Get Tenant ID of user
       String tenant_id = access.getToken().getTenant().get().getId();
       //Get nova endpoint
-      URI endpoint = null;
-      for (org.jclouds.openstack.keystone.v2_0.domain.Service service : access) {
-        if (service.getName().equals("nova")) {
-          for (Endpoint end : service) {
-            endpoint = end.getPublicURL();
-            break;
-          }
-          break;
-        }
-      }
+      URI endpoint = getEndpoint(vimInstance, "compute", "nova");
 
       //Prepare quota request
       URL url = new URL(endpoint + "/os-quota-sets/" + tenant_id);
-      connection = (HttpURLConnection) url.openConnection();
+      connection = openConnection(url);
       connection.setRequestMethod("GET");
       connection.setRequestProperty("Accept", "application/json");
       connection.setRequestProperty("X-Auth-Token", access.getToken().getId());
@@ -2108,9 +3267,11 @@ public class OpenstackClient extends VimDriver {
    * @param fip
    * @return
    */
-  public synchronized void associateFloatingIpToNetwork(VimInstance vimInstance, Server server, Map.Entry<String, String> fip) {
+  public void associateFloatingIpToNetwork(VimInstance vimInstance, Server server, Map.Entry<String, String> fip) {
     log.debug("Associating FloatingIP to VM with hostname: " + server.getName() + " on VimInstance with name: " + vimInstance.getName());
     HttpURLConnection connection = null;
+    FloatingIpReservoir.Lease lease = null;
+    boolean associated = false;
     try {
       String floatingIp = null;
       String privateIp = null;
@@ -2121,7 +3282,12 @@ public class OpenstackClient extends VimDriver {
           if (privateIp == null)
             log.error("Associating FloatingIP: Cannot assign FloatingIPs to server " + server.getId() + " . wrong network" + fip.getKey());
           else {
-            floatingIp = listFreeFloatingIps(vimInstance).get(0);
+            lease = getFloatingIpReservoir(vimInstance, getCachedIpPoolName(vimInstance)).take(vimInstance);
+            if (lease == null) {
+              log.error("Cannot assign FloatingIPs to VM with hostname: " + server.getName() + ". No FloatingIPs left...");
+              return;
+            }
+            floatingIp = lease.getIp();
             log.debug("Got Floating ip" + floatingIp.toString());
           }
         } else if (validate(fip.getValue())) {
@@ -2137,13 +3303,7 @@ public class OpenstackClient extends VimDriver {
         log.error("Associating FloatingIP: Cannot assign FloatingIPs to server " + server.getId() + " . wrong floatingip: " + fip.getValue());
 
       log.debug("Associating " + floatingIp + " to server: " + server.getName());
-      ContextBuilder contextBuilder = ContextBuilder.newBuilder("openstack-nova").credentials(vimInstance.getUsername(), vimInstance.getPassword()).endpoint(vimInstance.getAuthUrl());
-      ComputeServiceContext context = contextBuilder.buildView(ComputeServiceContext.class);
-      Function<Credentials, Access> auth = context.utils().injector().getInstance(Key.get(new TypeLiteral<Function<Credentials, Access>>() {
-      }));
-
-      //Get Access and all information
-      Access access = auth.apply(new Credentials.Builder<Credentials>().identity(vimInstance.getTenant() + ":" + vimInstance.getUsername()).credential(vimInstance.getPassword()).build());
+      Access access = accessCache.get(vimInstance);
       //Get Tenant ID of user
 
       String tenant_id = access.getToken().getTenant().get().getId();
@@ -2151,26 +3311,19 @@ public class OpenstackClient extends VimDriver {
       URI endpoint = null;
 
       log.debug("Associating FloatingIP: finding endpoint");
-      for (org.jclouds.openstack.keystone.v2_0.domain.Service service : access) {
-        if (service.getName().equals("neutron")) {
-          for (Endpoint end : service) {
-            endpoint = end.getPublicURL();
-            break;
-          }
-          break;
-        }
-      }
+      endpoint = getEndpoint(vimInstance, "network", "neutron");
 
       log.debug("Associating FloatingIP: Endpoint is: " + endpoint);
 
       // Get floating Ip
       String floatingIpId = null;
       String port_id = null;
-      NovaApi novaApi = ContextBuilder.newBuilder("openstack-nova").endpoint(vimInstance.getAuthUrl()).credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(), vimInstance.getPassword()).modules(modules).overrides(overrides).buildApi(NovaApi.class);
+      NovaApi novaApi = contexts.getNovaApi(vimInstance);
             if (novaApi.getFloatingIPApi(getZone(vimInstance)).isPresent()) {
               org.jclouds.openstack.nova.v2_0.extensions.FloatingIPApi floatingIPApi = novaApi.getFloatingIPApi(getZone(vimInstance)).get();
 
               floatingIPApi.addToServer(floatingIp, server.getExtId());
+              associated = true;
               server.getFloatingIps().put(fip.getKey(), floatingIp);
               log.info("Associated FloatingIP to VM with hostname: " +
                       server.getName() +
@@ -2181,14 +3334,12 @@ public class OpenstackClient extends VimDriver {
             } else {
               log.warn("Could not access floating ip using the jclouds APIs, trying with restAPI");
 
-              floatingIpId = findFloatingIpId(floatingIp, vimInstance);
-
-              Map<String, String> ports = listPorts(access, endpoint, vimInstance);
+              floatingIpId = findFloatingIpId(access, endpoint, floatingIp);
 
-              port_id = ports.get(privateIp);
+              port_id = findPortId(access, endpoint, privateIp, server.getExtId());
 
               URL url = new URL(endpoint + "/v2.0/floatingips/" + floatingIpId + ".json");
-              connection = (HttpURLConnection) url.openConnection();
+              connection = openConnection(url);
               connection.setRequestMethod("PUT");
               connection.setDoOutput(true);
               connection.setRequestProperty("Accept", "application/json");
@@ -2211,6 +3362,7 @@ public class OpenstackClient extends VimDriver {
               rd.close();
               //Parse json to object
               log.debug("Associating FloatingIP: Response of final request is: " + response.toString());
+              associated = true;
 
               log.debug("Translating ip...");
               floatingIp = translateToNAT(floatingIp);
@@ -2228,6 +3380,13 @@ public class OpenstackClient extends VimDriver {
       //throw new VimDriverException(e.getMessage());
       log.warn("It seems that floatingApi is not present or there are not enough available floating ips, this means that we will not be able to assign them");
     } finally {
+      if (lease != null) {
+        if (associated) {
+          lease.confirm();
+        } else {
+          lease.cancel();
+        }
+      }
       if (connection != null) {
         connection.disconnect();
       }
@@ -2298,40 +3457,14 @@ public class OpenstackClient extends VimDriver {
     HttpURLConnection connection = null;
     log.info("Began retrieving the name of the ip pool");
     try {
-      ContextBuilder
-          contextBuilder =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .credentials(vimInstance.getUsername(), vimInstance.getPassword())
-                        .endpoint(vimInstance.getAuthUrl());
-      ComputeServiceContext context = contextBuilder.buildView(ComputeServiceContext.class);
-      Function<Credentials, Access>
-          auth =
-          context.utils().injector().getInstance(Key.get(new TypeLiteral<Function<Credentials, Access>>() {
-          }));
-      //Get Access and all information
-      Access
-          access =
-          auth.apply(new Credentials.Builder<Credentials>().identity(vimInstance.getTenant() +
-                                                                     ":" +
-                                                                     vimInstance.getUsername())
-                                                           .credential(vimInstance.getPassword())
-                                                           .build());
+      Access access = accessCache.get(vimInstance);
       //Get Tenant ID of user
       String tenant_id = access.getToken().getTenant().get().getId();
       //Get nova endpoint
-      URI endpoint = null;
-      for (org.jclouds.openstack.keystone.v2_0.domain.Service service : access) {
-        if (service.getName().equals("nova")) {
-          for (Endpoint end : service) {
-            endpoint = end.getPublicURL();
-            break;
-          }
-          break;
-        }
-      }
+      URI endpoint = getEndpoint(vimInstance, "compute", "nova");
       URL url = null;
       url = new URL(endpoint + "/os-floating-ip-pools");
-      connection = (HttpURLConnection) url.openConnection();
+      connection = openConnection(url);
       connection.setRequestMethod("GET");
       connection.setRequestProperty("Accept", "application/json");
       connection.setRequestProperty("X-Auth-Token", access.getToken().getId());
@@ -2363,139 +3496,148 @@ public class OpenstackClient extends VimDriver {
     }
   }
 
-  //allocated a number of ips from the pool
-  public void get_allocated(VimInstance vimInstance, String pool_name, int ipsNeeded) {
-    if (pool_name == null) {
-      return;
+  /**
+   * Allocates up to ipsNeeded floating ips from the pool, sending at most floating-ip-allocate-concurrency requests at
+   * a time, and returns their addresses. Stops as soon as the pool does not give an ip anymore, so fewer addresses are
+   * returned when the pool is exhausted.
+   */
+  public List<String> get_allocated(final VimInstance vimInstance, final String pool_name, int ipsNeeded) {
+    final List<String> allocated = Collections.synchronizedList(new ArrayList<String>());
+    if (pool_name == null || ipsNeeded <= 0) {
+      return allocated;
     }
-
-    try {
-      NovaApi
-          novaApi =
-          ContextBuilder.newBuilder("openstack-nova")
-                        .endpoint(vimInstance.getAuthUrl())
-                        .credentials(vimInstance.getTenant() + ":" + vimInstance.getUsername(),
-                                     vimInstance.getPassword())
-                        .modules(modules)
-                        .overrides(overrides)
-                        .buildApi(NovaApi.class);
-      if (novaApi.getFloatingIPApi(getZone(vimInstance)).isPresent()) {
-        org.jclouds.openstack.nova.v2_0.extensions.FloatingIPApi
-            floatingIPApi =
-            novaApi.getFloatingIPApi(getZone(vimInstance)).get();
-        while (ipsNeeded > 0) {
-          log.debug("Allocating ip from pool: " + pool_name);
-          org.jclouds.openstack.nova.v2_0.domain.FloatingIP ip = floatingIPApi.allocateFromPool(pool_name);
-          if (ip == null) {
-            log.warn("There are not enough ips in the pool for instantiation");
+    NovaApi novaApi = contexts.getNovaApi(vimInstance);
+    if (!novaApi.getFloatingIPApi(getZone(vimInstance)).isPresent()) {
+      log.warn("Could not access floating ip API");
+      return allocated;
+    }
+    final org.jclouds.openstack.nova.v2_0.extensions.FloatingIPApi floatingIPApi =
+        novaApi.getFloatingIPApi(getZone(vimInstance)).get();
+    final AtomicInteger remaining = new AtomicInteger(ipsNeeded);
+    final AtomicBoolean exhausted = new AtomicBoolean();
+    List<ListenableFuture<?>> workers = new ArrayList<>();
+    for (int i = 0; i < Math.min(ipsNeeded, Math.max(1, floatingIpAllocateConcurrency)); i++) {
+      workers.add(executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          while (!exhausted.get() && remaining.getAndDecrement() > 0) {
+            log.debug("Allocating ip from pool: " + pool_name);
+            FloatingIP ip;
+            try {
+              ip = floatingIPApi.allocateFromPool(pool_name);
+            } catch (Exception e) {
+              log.warn("Not able to allocate a floating ip from pool " + pool_name + ": " + e.getMessage());
+              ip = null;
+            }
+            if (ip == null) {
+              exhausted.set(true);
+              return;
+            }
+            log.info("Allocated new ip from pool " + pool_name + "Data about ip: " + ip.toString());
+            allocated.add(ip.getIp());
           }
-          log.info("Allocated new ip from pool " + pool_name + "Data about ip: " + ip.toString());
-          ipsNeeded--;
         }
-      } else {
-        log.warn("Could not access floating ip API");
-      }
-    } catch (Exception e) {
-      log.warn(
-          "It was impossible to allocate more floating ips because the quota is riched or floatingapis are not available");
-      //throw new VimDriverException(e.getMessage());
+      }));
+    }
+    Futures.getUnchecked(Futures.successfulAsList(workers));
+    if (exhausted.get()) {
+      log.warn("The pool " +
+               pool_name +
+               " of VimInstance with name: " +
+               vimInstance.getName() +
+               " is exhausted or the floating ip quota is reached: allocated " +
+               allocated.size() +
+               " of " +
+               ipsNeeded +
+               " floating ips");
     }
-    return;
+    return new ArrayList<>(allocated);
   }
 
-  private String findFloatingIpId(String floatingIp, VimInstance vimInstance) throws VimDriverException, IOException {
-    URI endpoint = null;
-    ContextBuilder contextBuilder = ContextBuilder.newBuilder("openstack-nova").credentials(vimInstance.getUsername(), vimInstance.getPassword()).endpoint(vimInstance.getAuthUrl());
-    ComputeServiceContext context = contextBuilder.buildView(ComputeServiceContext.class);
-    Function<Credentials, Access> auth = context.utils().injector().getInstance(Key.get(new TypeLiteral<Function<Credentials, Access>>() {
-    }));
-
-    Access access = auth.apply(new Credentials.Builder<Credentials>().identity(vimInstance.getTenant() + ":" + vimInstance.getUsername()).credential(vimInstance.getPassword()).build());
+  /**
+   * Returns the id of the floating ip with the given address, letting neutron filter the floating ips.
+   */
+  private String findFloatingIpId(Access access, URI endpoint, String floatingIp) throws VimDriverException,
+                                                                                         IOException {
+    JsonArray floatingips = getNeutronList(access,
+                                           endpoint,
+                                           "floatingips",
+                                           "floating_ip_address=" + URLEncoder.encode(floatingIp, "UTF-8"));
+    if (floatingips.size() == 0) {
+      throw new VimDriverException("Not found FloatingIP with address: " + floatingIp);
+    }
+    return floatingips.get(0).getAsJsonObject().get("id").getAsString();
+  }
 
-    log.debug("listing FloatingIPs: finding endpoint");
-    for (org.jclouds.openstack.keystone.v2_0.domain.Service service : access) {
-      if (service.getName().equals("neutron")) {
-        for (Endpoint end : service) {
-          endpoint = end.getPublicURL();
-          break;
-        }
-        break;
-      }
+  /**
+   * Returns the id of the port of the VM with the given fixed ip, letting neutron filter the ports.
+   */
+  private String findPortId(Access access, URI endpoint, String privateIp, String deviceId) throws VimDriverException,
+                                                                                                  IOException {
+    JsonArray ports = getNeutronList(access,
+                                     endpoint,
+                                     "ports",
+                                     "fixed_ips=" +
+                                     URLEncoder.encode("ip_address=" + privateIp, "UTF-8") +
+                                     "&device_id=" +
+                                     URLEncoder.encode(deviceId, "UTF-8"));
+    if (ports.size() == 0) {
+      throw new VimDriverException("Not found Port with ip: " + privateIp + " of VM with ExtId: " + deviceId);
     }
+    return ports.get(0).getAsJsonObject().get("id").getAsString();
+  }
 
+  /**
+   * Lists the ids of the neutron resources matching the query, using the given token and endpoint.
+   */
+  private JsonArray getNeutronList(Access access, URI endpoint, String resource, String query) throws IOException {
     HttpURLConnection connection = null;
-    URL url = new URL(endpoint + "/v2.0/floatingips.json");
-    connection = (HttpURLConnection) url.openConnection();
-    connection.setRequestMethod("GET");
-    connection.setDoOutput(true);
-    connection.setRequestProperty("Accept", "application/json");
-    connection.setRequestProperty("Content-Type", "application/json");
-    connection.setRequestProperty("User-Agent", "python-neutronclient");
-    connection.setRequestProperty("X-Auth-Token", access.getToken().getId());
-
-    InputStream is = connection.getInputStream();
-    BufferedReader rd = new BufferedReader(new InputStreamReader(is));
-    StringBuilder response = new StringBuilder(); // or StringBuffer if not Java 5+
-    String line;
-    while ((line = rd.readLine()) != null) {
-      response.append(line);
-      response.append('\r');
-    }
-    rd.close();
-    //Parse json to object
-    log.debug("Associating FloatingIP: Response of final request is: " + response.toString());
-
-    JsonObject res = new GsonBuilder().setPrettyPrinting().create().fromJson(response.toString(), JsonObject.class);
-
-    if (res.has("floatingips")) {
-      for (JsonElement element : res.get("floatingips").getAsJsonArray()) {
-        log.debug("FloatingIp is: " + element.getAsJsonObject());
-        String floating_ip_address = element.getAsJsonObject().get("floating_ip_address").getAsString();
-        log.debug("found ip: " + floating_ip_address);
-        log.debug(floating_ip_address + " == " + floatingIp);
-        if (floating_ip_address.equals(floatingIp))
-          return element.getAsJsonObject().get("id").getAsString();
+    try {
+      URL url = new URL(endpoint + "/v2.0/" + resource + ".json?" + query + "&fields=id");
+      connection = openConnection(url);
+      connection.setRequestMethod("GET");
+      connection.setRequestProperty("Accept", "application/json");
+      connection.setRequestProperty("User-Agent", "python-neutronclient");
+      connection.setRequestProperty("X-Auth-Token", access.getToken().getId());
+
+      InputStream is = connection.getInputStream();
+      BufferedReader rd = new BufferedReader(new InputStreamReader(is));
+      StringBuilder response = new StringBuilder();
+      String line;
+      while ((line = rd.readLine()) != null) {
+        response.append(line);
+        response.append('\r');
+      }
+      rd.close();
+      log.debug("Listing " + resource + " with " + query + ": Response is: " + response.toString());
+
+      JsonObject json = new JsonParser().parse(response.toString()).getAsJsonObject();
+      return json.has(resource) ? json.get(resource).getAsJsonArray() : new JsonArray();
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
       }
-    } else {
-      log.warn("Was not possible through Openstack ReST api to retreive all the FloatingIP");
     }
-    throw new VimDriverException("looking for a floating ip id of a not existing floating ip. Sorry for that, we can't really implement very well:(");
   }
-  private Map<String, String> listPorts(Access access, URI endpoint, VimInstance vimInstance) throws IOException {
-    Map<String, String> result = new HashMap<>();
-    HttpURLConnection connection = null;
-    // curl -g -i -X GET http://192.168.145.70:9696/v2.0/ports.json -H "User-Agent: python-neutronclient" -H "Accept: application/json" -H "X-Auth-Token: {SHA1}30473af2f293a9d6b758bce6a82c8061e5593781"
-    URL url = new URL(endpoint + "/v2.0/ports.json");
-    connection = (HttpURLConnection) url.openConnection();
-    connection.setRequestMethod("GET");
-    connection.setDoOutput(true);
-    connection.setRequestProperty("Accept", "application/json");
-    connection.setRequestProperty("User-Agent", "python-neutronclient");
-    connection.setRequestProperty("X-Auth-Token", access.getToken().getId());
-
-    InputStream is = connection.getInputStream();
-    BufferedReader rd = new BufferedReader(new InputStreamReader(is));
-    StringBuilder response = new StringBuilder(); // or StringBuffer if not Java 5+
-    String line;
-    while ((line = rd.readLine()) != null) {
-      response.append(line);
-      response.append('\r');
-    }
-    rd.close();
-    //Parse json to object
-    log.debug("Listing Ports: Response of final request is: " + response.toString());
-
-    JsonObject ports = new GsonBuilder().setPrettyPrinting().create().fromJson(response.toString(),JsonObject.class);
-
-    for (JsonElement port : ports.get("ports").getAsJsonArray()){
-      for (JsonElement ip : port.getAsJsonObject().get("fixed_ips").getAsJsonArray())
-        result.put(ip.getAsJsonObject().get("ip_address").getAsString(),port.getAsJsonObject().get("id").getAsString());
-    }
-
-    log.debug("Found all the ports: " + result);
-    return result;
+
+  /**
+   * Formats the date as the ISO 8601 UTC timestamp nova expects in changes-since.
+   */
+  private static String iso8601(Date date) {
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    return format.format(date);
   }
 
+  /**
+   * Opens a connection to the url that gives up after the configured connect and read timeouts.
+   */
+  private HttpURLConnection openConnection(URL url) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setConnectTimeout(httpConnectTimeout);
+    connection.setReadTimeout(httpReadTimeout);
+    return connection;
+  }
 
   @Override
   public String getType(VimInstance vimInstance) {
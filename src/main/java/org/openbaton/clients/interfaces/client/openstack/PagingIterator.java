@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Iterators;
+
+import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Iterates over a paginated openstack listing, requesting one page at a time and converting every element only when
+ * it is consumed.
+ *
+ * The marker of the next page is taken from the next link of the page or, for apis that do not return one (glance
+ * v1), from the id of the last element of a full page. When a prefetcher is given, the next page is requested in the
+ * background while the current one is consumed, so at most two pages are held at the same time.
+ *
+ * @param <J> the jclouds type of the listing
+ * @param <T> the catalogue type it is converted to
+ */
+abstract class PagingIterator<J, T> implements Iterator<T> {
+
+  private final int limit;
+  private final ExecutorService prefetcher;
+  private Iterator<J> page = Iterators.emptyIterator();
+  private Future<PaginatedCollection<J>> nextPage;
+  private String marker;
+  private boolean lastPage;
+  private T next;
+
+  /**
+   * @param limit the number of elements requested per page
+   * @param prefetcher the executor requesting the next page in the background, or null to not prefetch
+   */
+  PagingIterator(int limit, ExecutorService prefetcher) {
+    this.limit = limit;
+    this.prefetcher = prefetcher;
+  }
+
+  /**
+   * Requests the page starting after marker (the first one if marker is null).
+   */
+  protected abstract PaginatedCollection<J> fetch(String marker, int limit) throws Exception;
+
+  /**
+   * Converts an element of a page, or returns null to skip it.
+   */
+  protected abstract T convert(J element) throws Exception;
+
+  protected abstract String idOf(J element);
+
+  @Override
+  public boolean hasNext() {
+    while (next == null) {
+      while (!page.hasNext()) {
+        if (lastPage) {
+          return false;
+        }
+        loadPage();
+      }
+      try {
+        next = convert(page.next());
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException(e.getMessage(), e);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    T current = next;
+    next = null;
+    return current;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  private void loadPage() {
+    PaginatedCollection<J> current;
+    try {
+      current = nextPage != null ? nextPage.get() : fetch(marker, limit);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the next page", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e.getMessage(), e);
+    }
+    nextPage = null;
+    int size = 0;
+    String lastId = null;
+    for (J element : current) {
+      size++;
+      lastId = idOf(element);
+    }
+    Optional<Object> nextMarker = current.nextMarker();
+    if (nextMarker.isPresent()) {
+      marker = nextMarker.get().toString();
+    } else if (size >= limit && lastId != null) {
+      marker = lastId;
+    } else {
+      lastPage = true;
+    }
+    page = current.iterator();
+    if (!lastPage && prefetcher != null) {
+      final String pageMarker = marker;
+      nextPage = prefetcher.submit(new Callable<PaginatedCollection<J>>() {
+        @Override
+        public PaginatedCollection<J> call() throws Exception {
+          return fetch(pageMarker, limit);
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when to poll a VM that is booting or being deleted, from the durations of the previous boots and deletes
+ * of VMs with the same image and flavor.
+ *
+ * With enough history, the first poll happens when the fastest recent operations completed and the following ones
+ * every minimum interval until the slowest recent ones completed. Without history, or once that window is over, the
+ * polls back off exponentially with jitter up to the maximum interval. The counters of the polls are exposed as
+ * metrics.
+ */
+class PollSchedule {
+
+  static final String BOOT = "boot";
+  static final String DELETE = "delete";
+
+  private static final int MIN_SAMPLES = 3;
+
+  private final long minInterval;
+  private final long maxInterval;
+  private final int historySize;
+  private final Cache<String, Samples> history;
+  private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+  private final Random random = new Random();
+
+  /**
+   * @param minInterval milliseconds between two polls while the operation is expected to complete
+   * @param maxInterval the maximum milliseconds between two polls
+   * @param historySize the number of durations kept per operation, image and flavor
+   */
+  PollSchedule(long minInterval, long maxInterval, int historySize) {
+    this.minInterval = minInterval;
+    this.maxInterval = Math.max(minInterval, maxInterval);
+    this.historySize = historySize;
+    this.history = CacheBuilder.newBuilder().maximumSize(1000).build();
+  }
+
+  static String key(String imageId, String flavorId) {
+    return imageId + "|" + flavorId;
+  }
+
+  /**
+   * Records how many milliseconds the operation took for a VM with the given image and flavor key.
+   */
+  void record(String operation, String key, long duration) {
+    Samples samples = history.getIfPresent(operation + "|" + key);
+    if (samples == null) {
+      history.asMap().putIfAbsent(operation + "|" + key, new Samples(historySize));
+      samples = history.getIfPresent(operation + "|" + key);
+    }
+    if (samples != null) {
+      samples.add(duration);
+    }
+    count(operation + "-completed");
+  }
+
+  /**
+   * Returns the milliseconds to wait before the next poll of an operation that started elapsed milliseconds ago.
+   */
+  long nextDelay(String operation, String key, long elapsed) {
+    long backoffStart = 0;
+    Samples samples = history.getIfPresent(operation + "|" + key);
+    if (samples != null) {
+      long[] quantiles = samples.quantiles(0.1, 0.9);
+      if (quantiles != null) {
+        if (elapsed < quantiles[0]) {
+          return clamp(quantiles[0] - elapsed);
+        }
+        if (elapsed < quantiles[1]) {
+          return minInterval;
+        }
+        backoffStart = quantiles[1];
+      }
+    }
+    double jitter;
+    synchronized (random) {
+      jitter = 0.75 + random.nextDouble() / 2;
+    }
+    return clamp((long) ((elapsed - backoffStart) / 2 * jitter));
+  }
+
+  void count(String counter) {
+    AtomicLong value = counters.get(counter);
+    if (value == null) {
+      counters.putIfAbsent(counter, new AtomicLong());
+      value = counters.get(counter);
+    }
+    value.incrementAndGet();
+  }
+
+  /**
+   * Returns the poll counters, by name.
+   */
+  Map<String, Long> metrics() {
+    Map<String, Long> metrics = new LinkedHashMap<>();
+    for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+      metrics.put(counter.getKey(), counter.getValue().get());
+    }
+    return metrics;
+  }
+
+  private long clamp(long delay) {
+    return Math.min(maxInterval, Math.max(minInterval, delay));
+  }
+
+  private static class Samples {
+    private final long[] durations;
+    private int size;
+    private int next;
+
+    private Samples(int capacity) {
+      durations = new long[Math.max(1, capacity)];
+    }
+
+    private synchronized void add(long duration) {
+      durations[next] = duration;
+      next = (next + 1) % durations.length;
+      size = Math.min(size + 1, durations.length);
+    }
+
+    private synchronized long[] quantiles(double low, double high) {
+      if (size < MIN_SAMPLES) {
+        return null;
+      }
+      long[] sorted = Arrays.copyOf(durations, size);
+      Arrays.sort(sorted);
+      return new long[] {sorted[(int) (low * (size - 1))], sorted[(int) Math.ceil(high * (size - 1))]};
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs requests on the executor, at most a given number of them at a time. Requests beyond the limit wait in a queue
+ * instead of on a thread, and each finished request submits the next queued one.
+ */
+class RequestQueue {
+
+  private final ExecutorService executor;
+  private final int concurrency;
+  private final Queue<Runnable> queued = new ArrayDeque<>();
+  private int running;
+
+  RequestQueue(ExecutorService executor, int concurrency) {
+    this.executor = executor;
+    this.concurrency = Math.max(1, concurrency);
+  }
+
+  /**
+   * Returns a future completed with the result of the request once it ran. A request whose future is cancelled while
+   * it is queued is not run.
+   */
+  <T> ListenableFuture<T> submit(final Callable<T> request) {
+    final SettableFuture<T> result = SettableFuture.create();
+    Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (!result.isCancelled()) {
+            result.set(request.call());
+          }
+        } catch (Throwable t) {
+          result.setException(t);
+        } finally {
+          next();
+        }
+      }
+    };
+    synchronized (this) {
+      if (running >= concurrency) {
+        queued.add(task);
+        return result;
+      }
+      running++;
+    }
+    executor.execute(task);
+    return result;
+  }
+
+  synchronized int size() {
+    return queued.size();
+  }
+
+  private void next() {
+    Runnable task;
+    synchronized (this) {
+      task = queued.poll();
+      if (task == null) {
+        running--;
+        return;
+      }
+    }
+    executor.execute(task);
+  }
+}
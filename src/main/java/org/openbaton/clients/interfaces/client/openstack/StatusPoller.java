@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for the VMs of a VimInstance to finish booting or to be deleted, polling all of them with a single listing per
+ * wake-up.
+ *
+ * Every VM is polled when the {@link PollSchedule} says so, and a wake-up lists the VMs changed since the previous one
+ * (deleted ones included) and completes the waiters of the ones that reached their final state, due or not. A VM
+ * missing from the listings of more than the given number of its polls is fetched on its own, for clouds that do not
+ * honour changes-since. Nothing is scheduled while nobody is waiting.
+ *
+ * Callers waiting for the same VM share its polling but each gets its own future: cancelling it, for example on a
+ * timeout, only detaches that caller, and the VM stops being polled once nobody waits for it anymore.
+ *
+ * The scheduler only triggers the wake-ups: the listings and fetches run on the executor, one wake-up at a time, so a
+ * slow cloud does not hold up the timers of the other VimInstances.
+ */
+abstract class StatusPoller {
+
+  private static final String[] OPERATIONS = {PollSchedule.BOOT, PollSchedule.DELETE};
+
+  private static Logger log = LoggerFactory.getLogger(StatusPoller.class);
+
+  private final String name;
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService executor;
+  private final PollSchedule schedule;
+  private final long clockSkew;
+  private final int maxMissedTicks;
+  private final Map<String, Waiter> waiters = new HashMap<>();
+  private final Runnable poll = new Runnable() {
+    @Override
+    public void run() {
+      poll();
+    }
+  };
+  private final Runnable tick = new Runnable() {
+    @Override
+    public void run() {
+      executor.execute(poll);
+    }
+  };
+  private Date since;
+  private ScheduledFuture<?> task;
+  private long wakeUp;
+  private boolean polling;
+
+  /**
+   * @param clockSkew milliseconds subtracted from the changes-since of every listing
+   */
+  StatusPoller(String name,
+               ScheduledExecutorService scheduler,
+               ExecutorService executor,
+               PollSchedule schedule,
+               long clockSkew,
+               int maxMissedTicks) {
+    this.name = name;
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.schedule = schedule;
+    this.clockSkew = clockSkew;
+    this.maxMissedTicks = maxMissedTicks;
+  }
+
+  /**
+   * Lists the VMs changed since the given date.
+   */
+  protected abstract Iterator<Server> listChangedSince(Date since) throws Exception;
+
+  /**
+   * Fetches a single VM, returning null if it does not exist.
+   */
+  protected abstract Server get(String serverId) throws Exception;
+
+  /**
+   * Returns a future completed with the VM once it is ACTIVE, in ERROR or DELETED.
+   *
+   * @param historyKey the {@link PollSchedule#key} of the image and flavor of the VM
+   */
+  ListenableFuture<Server> await(String serverId, String historyKey) {
+    return await(PollSchedule.BOOT, serverId, historyKey);
+  }
+
+  /**
+   * Returns a future completed with null once the VM does not exist anymore, or with the VM once it is DELETED.
+   *
+   * @param historyKey the {@link PollSchedule#key} of the image and flavor of the VM, or null if unknown
+   */
+  ListenableFuture<Server> awaitDeletion(String serverId, String historyKey) {
+    return await(PollSchedule.DELETE, serverId, historyKey);
+  }
+
+  private synchronized ListenableFuture<Server> await(String operation, String serverId, String historyKey) {
+    Waiter waiter = waiters.get(key(operation, serverId));
+    if (waiter == null) {
+      waiter = new Waiter(operation, serverId, historyKey, System.currentTimeMillis());
+      waiter.due = waiter.started + schedule.nextDelay(operation, historyKey, 0);
+      waiters.put(key(operation, serverId), waiter);
+    }
+    Date registered = new Date(System.currentTimeMillis() - clockSkew);
+    if (since == null || registered.before(since)) {
+      since = registered;
+    }
+    final SettableFuture<Server> caller = SettableFuture.create();
+    waiter.callers.add(caller);
+    final Waiter awaited = waiter;
+    caller.addListener(new Runnable() {
+      @Override
+      public void run() {
+        if (caller.isCancelled()) {
+          detach(awaited, caller);
+        }
+      }
+    }, MoreExecutors.sameThreadExecutor());
+    reschedule();
+    return caller;
+  }
+
+  /**
+   * Forgets a caller that stopped waiting, and the VM once nobody waits for it anymore.
+   */
+  private synchronized void detach(Waiter waiter, SettableFuture<Server> caller) {
+    waiter.callers.remove(caller);
+    if (waiter.callers.isEmpty() && waiters.get(key(waiter.operation, waiter.serverId)) == waiter) {
+      waiters.remove(key(waiter.operation, waiter.serverId));
+      reschedule();
+    }
+  }
+
+  private void poll() {
+    Date pollSince;
+    synchronized (this) {
+      task = null;
+      if (polling) {
+        return;
+      }
+      if (!isAnyDue(System.currentTimeMillis())) {
+        reschedule();
+        return;
+      }
+      polling = true;
+      pollSince = since;
+    }
+    schedule.count("wake-ups");
+    Date tickStart = new Date(System.currentTimeMillis() - clockSkew);
+    try {
+      schedule.count("list-polls");
+      Iterator<Server> changed = listChangedSince(pollSince);
+      while (changed.hasNext()) {
+        Server server = changed.next();
+        for (String operation : OPERATIONS) {
+          Waiter waiter;
+          synchronized (this) {
+            waiter = waiters.get(key(operation, server.getId()));
+            if (waiter == null) {
+              continue;
+            }
+            waiter.seen = true;
+            if (isFinal(operation, server)) {
+              waiters.remove(key(operation, server.getId()));
+            }
+          }
+          if (isFinal(operation, server)) {
+            complete(waiter, server);
+          }
+        }
+      }
+      List<Waiter> missed = new ArrayList<>();
+      synchronized (this) {
+        since = tickStart;
+        long now = System.currentTimeMillis();
+        for (Waiter waiter : waiters.values()) {
+          if (waiter.due > now) {
+            continue;
+          }
+          waiter.missedTicks = waiter.seen ? 0 : waiter.missedTicks + 1;
+          waiter.seen = false;
+          waiter.due = now + schedule.nextDelay(waiter.operation, waiter.historyKey, now - waiter.started);
+          if (waiter.missedTicks > maxMissedTicks) {
+            missed.add(waiter);
+          }
+        }
+      }
+      for (Waiter waiter : missed) {
+        try {
+          fetchMissed(waiter);
+        } catch (Exception e) {
+          // the VM is fetched again on its next missed poll, the others are still fetched now
+          log.warn("Not able to fetch VM with ExtId: " + waiter.serverId + " of " + name + ": " + e.getMessage());
+        }
+      }
+    } catch (Exception e) {
+      log.warn("Not able to poll the status of the VMs of " + name + ": " + e.getMessage());
+      synchronized (this) {
+        long now = System.currentTimeMillis();
+        for (Waiter waiter : waiters.values()) {
+          if (waiter.due <= now) {
+            waiter.due = now + schedule.nextDelay(waiter.operation, waiter.historyKey, now - waiter.started);
+          }
+        }
+      }
+    } finally {
+      synchronized (this) {
+        polling = false;
+        reschedule();
+      }
+    }
+  }
+
+  private void fetchMissed(Waiter missed) throws Exception {
+    log.debug("VM with ExtId: " + missed.serverId + " did not show up in the changes of " + name + ", fetching it");
+    schedule.count("get-polls");
+    Server server = get(missed.serverId);
+    boolean done = server == null || isFinal(missed.operation, server);
+    synchronized (this) {
+      if (waiters.get(key(missed.operation, missed.serverId)) != missed) {
+        return;
+      }
+      missed.missedTicks = 0;
+      if (done) {
+        waiters.remove(key(missed.operation, missed.serverId));
+      }
+    }
+    if (server == null && missed.operation.equals(PollSchedule.BOOT)) {
+      missed.fail(new IllegalStateException("Not found Server with ExtId: " + missed.serverId));
+    } else if (done) {
+      complete(missed, server);
+    }
+  }
+
+  private void complete(Waiter waiter, Server server) {
+    if (waiter.operation.equals(PollSchedule.DELETE) || server.getStatus() == Server.Status.ACTIVE) {
+      schedule.record(waiter.operation, waiter.historyKey, System.currentTimeMillis() - waiter.started);
+    }
+    waiter.set(server);
+  }
+
+  /**
+   * Schedules the next wake-up for the earliest due waiter, or cancels it when nobody is waiting. Called holding the
+   * lock of the poller.
+   */
+  private void reschedule() {
+    if (waiters.isEmpty()) {
+      if (task != null) {
+        task.cancel(false);
+        task = null;
+      }
+      since = null;
+      return;
+    }
+    long next = Long.MAX_VALUE;
+    for (Waiter waiter : waiters.values()) {
+      next = Math.min(next, waiter.due);
+    }
+    if (task != null) {
+      if (wakeUp <= next) {
+        return;
+      }
+      task.cancel(false);
+    }
+    wakeUp = next;
+    task = scheduler.schedule(tick, Math.max(0, next - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+  }
+
+  private boolean isAnyDue(long now) {
+    for (Waiter waiter : waiters.values()) {
+      if (waiter.due <= now) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isFinal(String operation, Server server) {
+    if (operation.equals(PollSchedule.DELETE)) {
+      return server.getStatus() == Server.Status.DELETED;
+    }
+    return server.getStatus() == Server.Status.ACTIVE ||
+           server.getStatus() == Server.Status.ERROR ||
+           server.getStatus() == Server.Status.DELETED;
+  }
+
+  private static String key(String operation, String serverId) {
+    return operation + "|" + serverId;
+  }
+
+  private class Waiter {
+    private final List<SettableFuture<Server>> callers = new ArrayList<>();
+    private final String operation;
+    private final String serverId;
+    private final String historyKey;
+    private final long started;
+    private long due;
+    private boolean seen;
+    private int missedTicks;
+
+    private Waiter(String operation, String serverId, String historyKey, long started) {
+      this.operation = operation;
+      this.serverId = serverId;
+      this.historyKey = historyKey;
+      this.started = started;
+    }
+
+    private void set(Server server) {
+      for (SettableFuture<Server> caller : callers()) {
+        caller.set(server);
+      }
+    }
+
+    private void fail(Throwable t) {
+      for (SettableFuture<Server> caller : callers()) {
+        caller.setException(t);
+      }
+    }
+
+    private List<SettableFuture<Server>> callers() {
+      synchronized (StatusPoller.this) {
+        return new ArrayList<>(callers);
+      }
+    }
+  }
+}
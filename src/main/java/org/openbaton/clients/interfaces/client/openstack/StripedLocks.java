@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.util.concurrent.Striped;
+
+import org.openbaton.exceptions.VimDriverException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Locks keyed by string, backed by a fixed number of stripes, that give up after a timeout and record how long
+ * callers waited for them and held them.
+ */
+class StripedLocks {
+
+  private final Striped<Lock> stripes;
+  private final long timeout;
+  private final AtomicLong acquired = new AtomicLong();
+  private final AtomicLong timedOut = new AtomicLong();
+  private final AtomicLong waitTime = new AtomicLong();
+  private final AtomicLong maxWaitTime = new AtomicLong();
+  private final AtomicLong holdTime = new AtomicLong();
+  private final AtomicLong maxHoldTime = new AtomicLong();
+
+  /**
+   * @param timeout milliseconds to wait for a lock before giving up
+   */
+  StripedLocks(int stripes, long timeout) {
+    this.stripes = Striped.lazyWeakLock(stripes);
+    this.timeout = timeout;
+  }
+
+  /**
+   * Acquires the lock of the key, failing if it is not available within the timeout.
+   */
+  Held lock(String key) throws VimDriverException {
+    Lock lock = stripes.get(key);
+    long start = System.currentTimeMillis();
+    boolean locked;
+    try {
+      locked = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new VimDriverException("Interrupted while waiting for the lock of " + key);
+    }
+    long waited = System.currentTimeMillis() - start;
+    if (!locked) {
+      timedOut.incrementAndGet();
+      throw new VimDriverException("Not able to get the lock of " + key + " after " + waited + " milliseconds");
+    }
+    acquired.incrementAndGet();
+    waitTime.addAndGet(waited);
+    max(maxWaitTime, waited);
+    return new Held(lock);
+  }
+
+  /**
+   * Returns the number of acquired and timed out locks, and the total and maximum milliseconds spent waiting for and
+   * holding them, by name.
+   */
+  Map<String, Long> metrics() {
+    Map<String, Long> metrics = new LinkedHashMap<>();
+    metrics.put("acquired", acquired.get());
+    metrics.put("timed-out", timedOut.get());
+    metrics.put("wait-time", waitTime.get());
+    metrics.put("max-wait-time", maxWaitTime.get());
+    metrics.put("hold-time", holdTime.get());
+    metrics.put("max-hold-time", maxHoldTime.get());
+    return metrics;
+  }
+
+  private static void max(AtomicLong max, long value) {
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * A lock held by the current thread, to be released in a finally block.
+   */
+  class Held {
+    private final Lock lock;
+    private final long since = System.currentTimeMillis();
+
+    private Held(Lock lock) {
+      this.lock = lock;
+    }
+
+    void release() {
+      long held = System.currentTimeMillis() - since;
+      lock.unlock();
+      holdTime.addAndGet(held);
+      max(maxHoldTime, held);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.base.Function;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.compute.Utils;
+import org.jclouds.domain.Credentials;
+import org.jclouds.openstack.keystone.v2_0.domain.Access;
+import org.jclouds.openstack.keystone.v2_0.domain.Service;
+import org.jclouds.openstack.keystone.v2_0.domain.Token;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openbaton.catalogue.nfvo.VimInstance;
+import org.powermock.reflect.Whitebox;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AccessCacheTest {
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService executor;
+    private Function<Credentials, Access> auth;
+    private AccessCache accessCache;
+    private VimInstance vimInstance;
+
+    @Before
+    public void init() {
+        scheduler = mock(ScheduledExecutorService.class);
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenReturn(mock(ScheduledFuture.class));
+        executor = Executors.newCachedThreadPool();
+        ContextRegistry contexts = mock(ContextRegistry.class);
+        ComputeServiceContext context = mock(ComputeServiceContext.class);
+        when(contexts.getComputeContext(any(VimInstance.class))).thenReturn(context);
+        Utils utils = mock(Utils.class);
+        when(context.utils()).thenReturn(utils);
+        Injector injector = mock(Injector.class);
+        when(utils.injector()).thenReturn(injector);
+        auth = mock(Function.class);
+        when(injector.getInstance(any(Key.class))).thenReturn(auth);
+        vimInstance = new VimInstance();
+        vimInstance.setName("mocked_vim_instance");
+        vimInstance.setTenant("mocked_tenant");
+        vimInstance.setAuthUrl("http://mocked_auth_url");
+        vimInstance.setPassword("mocked_password");
+        accessCache = new AccessCache(contexts, scheduler, executor, 300, 600);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRenewalDoesNotBlockWhileTheTokenIsValid() throws Exception {
+        Access current = access(TimeUnit.HOURS.toMillis(1));
+        final Access renewed = access(TimeUnit.HOURS.toMillis(1));
+        when(auth.apply(any(Credentials.class))).thenReturn(current);
+        Assert.assertSame(current, accessCache.get(vimInstance));
+
+        final CountDownLatch login = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(auth.apply(any(Credentials.class))).thenAnswer(new Answer<Access>() {
+            @Override
+            public Access answer(InvocationOnMock invocation) throws Throwable {
+                login.countDown();
+                release.await();
+                return renewed;
+            }
+        });
+        dueForRenewal();
+        // the renewal runs in the background while the callers keep the current token
+        Assert.assertSame(current, accessCache.get(vimInstance));
+        Assert.assertTrue(login.await(10, TimeUnit.SECONDS));
+        Assert.assertSame(current, accessCache.get(vimInstance));
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (accessCache.get(vimInstance) != renewed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertSame(renewed, accessCache.get(vimInstance));
+    }
+
+    @Test
+    public void testFailedRenewalKeepsTheValidToken() throws Exception {
+        Access current = access(TimeUnit.HOURS.toMillis(1));
+        when(auth.apply(any(Credentials.class))).thenReturn(current);
+        accessCache.get(vimInstance);
+
+        when(auth.apply(any(Credentials.class))).thenThrow(new IllegalStateException("mocked keystone failure"));
+        dueForRenewal();
+        Assert.assertSame(current, accessCache.get(vimInstance));
+    }
+
+    @Test
+    public void testSkewedTokenDoesNotLoopLogins() throws Exception {
+        Access skewed = access(-TimeUnit.HOURS.toMillis(1));
+        when(auth.apply(any(Credentials.class))).thenReturn(skewed);
+        Assert.assertSame(skewed, accessCache.get(vimInstance));
+        Assert.assertSame(skewed, accessCache.get(vimInstance));
+
+        verify(auth, times(1)).apply(any(Credentials.class));
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler, atLeastOnce()).schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.MILLISECONDS));
+        Assert.assertTrue(delay.getValue() >= TimeUnit.SECONDS.toMillis(29));
+    }
+
+    private Access access(long expiresIn) {
+        Access access = mock(Access.class);
+        Token token = mock(Token.class);
+        when(access.getToken()).thenReturn(token);
+        when(token.getExpires()).thenReturn(new Date(System.currentTimeMillis() + expiresIn));
+        when(access.iterator()).thenReturn(Collections.<Service>emptyIterator());
+        return access;
+    }
+
+    /**
+     * Moves the renewal of the token of the VimInstance to now, as if the refresh margin was reached.
+     */
+    private void dueForRenewal() {
+        Map<String, ?> entries = Whitebox.getInternalState(accessCache, "entries");
+        Whitebox.setInternalState(entries.values().iterator().next(), "renewAt", 0L);
+    }
+}
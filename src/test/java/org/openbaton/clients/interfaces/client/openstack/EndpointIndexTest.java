@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import org.jclouds.openstack.keystone.v2_0.domain.Access;
+import org.jclouds.openstack.keystone.v2_0.domain.Endpoint;
+import org.jclouds.openstack.keystone.v2_0.domain.Service;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EndpointIndexTest {
+
+    private EndpointIndex index;
+
+    @Before
+    public void init() {
+        Service nova = service("compute", "nova",
+                               endpoint("RegionOne", "http://nova-one", "http://nova-one-internal"),
+                               endpoint("RegionTwo", "http://nova-two", null));
+        Service neutron = service(null, "neutron", endpoint("RegionOne", "http://neutron-one", null));
+        Access access = mock(Access.class);
+        when(access.iterator()).thenReturn(Arrays.asList(nova, neutron).iterator());
+        index = new EndpointIndex(access);
+    }
+
+    @Test
+    public void testRegion() {
+        Assert.assertEquals(URI.create("http://nova-one"), index.get("compute", "nova", "RegionOne", EndpointIndex.PUBLIC));
+        Assert.assertEquals(URI.create("http://nova-two"), index.get("compute", "nova", "RegionTwo", EndpointIndex.PUBLIC));
+    }
+
+    @Test
+    public void testInterface() {
+        Assert.assertEquals(URI.create("http://nova-one-internal"), index.get("compute", "nova", "RegionOne", EndpointIndex.INTERNAL));
+        Assert.assertEquals(URI.create("http://nova-one-internal"), index.get("compute", "nova", "RegionTwo", EndpointIndex.INTERNAL));
+        Assert.assertNull(index.get("compute", "nova", "RegionOne", EndpointIndex.ADMIN));
+    }
+
+    @Test
+    public void testWithoutRegion() {
+        Assert.assertEquals(URI.create("http://nova-one"), index.get("compute", "nova", null, EndpointIndex.PUBLIC));
+        Assert.assertEquals(URI.create("http://nova-one"), index.get("compute", "nova", "RegionThree", EndpointIndex.PUBLIC));
+    }
+
+    @Test
+    public void testByName() {
+        Assert.assertEquals(URI.create("http://neutron-one"), index.get("network", "neutron", "RegionOne", EndpointIndex.PUBLIC));
+        Assert.assertEquals(URI.create("http://neutron-one"), index.get("network", "neutron", "RegionTwo", EndpointIndex.PUBLIC));
+        Assert.assertNull(index.get("image", "glance", "RegionOne", EndpointIndex.PUBLIC));
+    }
+
+    private static Service service(String type, String name, Endpoint... endpoints) {
+        Service service = mock(Service.class);
+        when(service.getType()).thenReturn(type);
+        when(service.getName()).thenReturn(name);
+        when(service.iterator()).thenReturn(Arrays.asList(endpoints).iterator());
+        return service;
+    }
+
+    private static Endpoint endpoint(String region, String publicUrl, String internalUrl) {
+        Endpoint endpoint = mock(Endpoint.class);
+        when(endpoint.getRegion()).thenReturn(region);
+        when(endpoint.getPublicURL()).thenReturn(URI.create(publicUrl));
+        when(endpoint.getInternalURL()).thenReturn(internalUrl == null ? null : URI.create(internalUrl));
+        return endpoint;
+    }
+}
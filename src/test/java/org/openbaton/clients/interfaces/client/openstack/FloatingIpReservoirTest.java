@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openbaton.catalogue.nfvo.VimInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FloatingIpReservoirTest {
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture future;
+    private TestReservoir reservoir;
+    private VimInstance vimInstance;
+
+    @Before
+    public void init() {
+        scheduler = mock(ScheduledExecutorService.class);
+        future = mock(ScheduledFuture.class);
+        when(scheduler.scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class)))
+                .thenReturn(future);
+        vimInstance = new VimInstance();
+        vimInstance.setName("vim");
+        reservoir = new TestReservoir(vimInstance, 60000, 120000);
+    }
+
+    @Test
+    public void testTakeSeedsAndRefills() throws Exception {
+        reservoir.listed.add("10.0.0.1");
+
+        Assert.assertEquals("10.0.0.1", reservoir.take(vimInstance).getIp());
+        // below the low watermark the reservoir allocates up to the high watermark
+        Assert.assertEquals(3, reservoir.size());
+        Assert.assertEquals(Arrays.asList("10.0.1.1", "10.0.1.2", "10.0.1.3"), reservoir.allocatedIps);
+        Assert.assertEquals("10.0.1.1", reservoir.take(vimInstance).getIp());
+        Assert.assertEquals(2, reservoir.size());
+    }
+
+    @Test
+    public void testTakeAllocatesWhenEmpty() throws Exception {
+        Assert.assertEquals("10.0.1.1", reservoir.take(vimInstance).getIp());
+        reservoir.exhausted = true;
+        reservoir.take(vimInstance);
+        reservoir.take(vimInstance);
+        reservoir.take(vimInstance);
+        Assert.assertNull(reservoir.take(vimInstance));
+    }
+
+    @Test
+    public void testTrim() throws Exception {
+        reservoir.take(vimInstance).confirm();
+        Assert.assertEquals(3, reservoir.size());
+
+        // an ip was taken since the previous trim: the reservoir keeps up to the high watermark
+        tasks().get(0).run();
+        Assert.assertTrue(reservoir.releasedIps.isEmpty());
+        // nobody took an ip since: the reservoir releases what it allocated down to the low watermark
+        tasks().get(0).run();
+        Assert.assertEquals(2, reservoir.releasedIps.size());
+        Assert.assertEquals(1, reservoir.size());
+    }
+
+    @Test
+    public void testCurrentVimInstance() throws Exception {
+        VimInstance renewed = new VimInstance();
+        renewed.setName("vim");
+        reservoir.take(renewed);
+
+        Assert.assertEquals(Arrays.asList(renewed, renewed, renewed), reservoir.callers);
+        tasks().get(1).run();
+        Assert.assertSame(renewed, reservoir.callers.get(reservoir.callers.size() - 1));
+    }
+
+    @Test
+    public void testIdleReservoirIsClosed() throws Exception {
+        reservoir = new TestReservoir(vimInstance, -1, 120000);
+        reservoir.listed.add("10.0.0.1");
+        reservoir.take(vimInstance).confirm();
+
+        tasks().get(1).run();
+        Assert.assertTrue(reservoir.isClosed());
+        Assert.assertTrue(reservoir.closed);
+        verify(future, times(2)).cancel(false);
+        // only the ips the reservoir allocated itself are released
+        Assert.assertEquals(Arrays.asList("10.0.1.1", "10.0.1.2", "10.0.1.3"), reservoir.releasedIps);
+        Assert.assertEquals(0, reservoir.size());
+    }
+
+    @Test
+    public void testPendingLeaseKeepsReservoirOpen() throws Exception {
+        reservoir = new TestReservoir(vimInstance, -1, 120000);
+        reservoir.listed.add("10.0.0.1");
+        reservoir.take(vimInstance);
+
+        tasks().get(1).run();
+        Assert.assertFalse(reservoir.isClosed());
+    }
+
+    @Test
+    public void testConfirmedLease() throws Exception {
+        reservoir.listed.addAll(Arrays.asList("10.0.0.1", "10.0.0.2"));
+        reservoir.take(vimInstance).confirm();
+        reservoir.listed.remove("10.0.0.1");
+
+        tasks().get(1).run();
+        Assert.assertEquals("10.0.0.2", reservoir.take(vimInstance).getIp());
+        Assert.assertFalse("10.0.0.1".equals(reservoir.take(vimInstance).getIp()));
+    }
+
+    @Test
+    public void testCancelledLease() throws Exception {
+        reservoir.listed.addAll(Arrays.asList("10.0.0.1", "10.0.0.2"));
+        FloatingIpReservoir.Lease lease = reservoir.take(vimInstance);
+        Assert.assertEquals("10.0.0.1", lease.getIp());
+        lease.cancel();
+
+        // a cancelled ip is not handed out again until a refresh finds it still free
+        Assert.assertEquals(1, reservoir.size());
+        Assert.assertEquals("10.0.0.2", reservoir.take(vimInstance).getIp());
+        tasks().get(1).run();
+        Assert.assertEquals("10.0.0.1", reservoir.take(vimInstance).getIp());
+    }
+
+    @Test
+    public void testExpiredLease() throws Exception {
+        reservoir = new TestReservoir(vimInstance, 60000, -1);
+        reservoir.listed.addAll(Arrays.asList("10.0.0.1", "10.0.0.2"));
+        Assert.assertEquals("10.0.0.1", reservoir.take(vimInstance).getIp());
+
+        // the lease expired and the cloud still lists the ip as free
+        tasks().get(1).run();
+        Assert.assertEquals(2, reservoir.size());
+    }
+
+    @Test
+    public void testTakeDoesNotHoldTheLockWhileAllocating() throws Exception {
+        reservoir.blocking = new CountDownLatch(1);
+        reservoir.proceed = new CountDownLatch(1);
+        Thread take = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reservoir.take(vimInstance);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        take.start();
+        reservoir.blocking.await();
+        reservoir.size();
+        reservoir.proceed.countDown();
+        take.join(10000);
+
+        Assert.assertTrue(reservoir.proceeded);
+    }
+
+    /**
+     * Returns the trim and refresh tasks scheduled by the last reservoir created.
+     */
+    private List<Runnable> tasks() {
+        ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, atLeast(2))
+                .scheduleWithFixedDelay(tasks.capture(), anyLong(), anyLong(), any(TimeUnit.class));
+        List<Runnable> all = tasks.getAllValues();
+        return all.subList(all.size() - 2, all.size());
+    }
+
+    private class TestReservoir extends FloatingIpReservoir {
+        private final List<String> listed = new ArrayList<>();
+        private final List<String> allocatedIps = new ArrayList<>();
+        private final List<String> releasedIps = new ArrayList<>();
+        private final List<VimInstance> callers = new ArrayList<>();
+        private boolean exhausted;
+        private boolean closed;
+        private CountDownLatch blocking;
+        private CountDownLatch proceed;
+        private volatile boolean proceeded;
+
+        private TestReservoir(VimInstance vimInstance, long idleTimeout, long leaseTimeout) {
+            super("vim/pool",
+                  vimInstance,
+                  scheduler,
+                  MoreExecutors.sameThreadExecutor(),
+                  1,
+                  3,
+                  600,
+                  60,
+                  leaseTimeout,
+                  idleTimeout);
+        }
+
+        @Override
+        protected List<String> listFree(VimInstance vimInstance) {
+            callers.add(vimInstance);
+            return new ArrayList<>(listed);
+        }
+
+        @Override
+        protected List<String> allocate(VimInstance vimInstance, int count) throws InterruptedException {
+            if (blocking != null) {
+                blocking.countDown();
+                proceeded = proceed.await(5, TimeUnit.SECONDS);
+                blocking = null;
+            }
+            callers.add(vimInstance);
+            List<String> ips = new ArrayList<>();
+            for (int i = 0; i < count && !exhausted; i++) {
+                String ip = "10.0.1." + (allocatedIps.size() + 1);
+                allocatedIps.add(ip);
+                ips.add(ip);
+            }
+            return ips;
+        }
+
+        @Override
+        protected void release(VimInstance vimInstance, String ip) {
+            releasedIps.add(ip);
+        }
+
+        @Override
+        protected void closed() {
+            closed = true;
+        }
+    }
+}
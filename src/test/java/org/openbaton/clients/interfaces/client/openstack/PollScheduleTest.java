@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PollScheduleTest {
+
+    private static final String KEY = PollSchedule.key("image_id", "flavor_id");
+
+    private PollSchedule schedule;
+
+    @Before
+    public void init() {
+        schedule = new PollSchedule(1000, 30000, 10);
+    }
+
+    @Test
+    public void testWithoutHistory() {
+        assertBackoff(1000, 1000, schedule.nextDelay(PollSchedule.BOOT, KEY, 0));
+        assertBackoff(1000, 1000, schedule.nextDelay(PollSchedule.BOOT, KEY, 1000));
+        assertBackoff(7500, 12500, schedule.nextDelay(PollSchedule.BOOT, KEY, 20000));
+        assertBackoff(30000, 30000, schedule.nextDelay(PollSchedule.BOOT, KEY, 600000));
+    }
+
+    @Test
+    public void testNotEnoughSamples() {
+        schedule.record(PollSchedule.BOOT, KEY, 50000);
+        schedule.record(PollSchedule.BOOT, KEY, 50000);
+        assertBackoff(1000, 1000, schedule.nextDelay(PollSchedule.BOOT, KEY, 0));
+    }
+
+    @Test
+    public void testWindowFromHistory() {
+        for (long duration = 20000; duration <= 60000; duration += 5000) {
+            schedule.record(PollSchedule.BOOT, KEY, duration);
+        }
+        // the fastest boots took 20 seconds, the slowest 60
+        Assert.assertEquals(20000, schedule.nextDelay(PollSchedule.BOOT, KEY, 0));
+        Assert.assertEquals(5000, schedule.nextDelay(PollSchedule.BOOT, KEY, 15000));
+        Assert.assertEquals(1000, schedule.nextDelay(PollSchedule.BOOT, KEY, 20000));
+        Assert.assertEquals(1000, schedule.nextDelay(PollSchedule.BOOT, KEY, 59000));
+        // after the window the backoff starts again from its end
+        assertBackoff(1000, 1000, schedule.nextDelay(PollSchedule.BOOT, KEY, 60000));
+        assertBackoff(7500, 12500, schedule.nextDelay(PollSchedule.BOOT, KEY, 80000));
+        // the history is kept per operation and per image and flavor
+        assertBackoff(1000, 1000, schedule.nextDelay(PollSchedule.DELETE, KEY, 0));
+        assertBackoff(1000, 1000, schedule.nextDelay(PollSchedule.BOOT, PollSchedule.key("image_id", "other"), 0));
+    }
+
+    @Test
+    public void testHistorySize() {
+        for (int i = 0; i < 10; i++) {
+            schedule.record(PollSchedule.DELETE, KEY, 100000);
+        }
+        for (int i = 0; i < 10; i++) {
+            schedule.record(PollSchedule.DELETE, KEY, 5000);
+        }
+        Assert.assertEquals(5000, schedule.nextDelay(PollSchedule.DELETE, KEY, 0));
+        Assert.assertEquals(20L, (long) schedule.metrics().get("delete-completed"));
+    }
+
+    private static void assertBackoff(long min, long max, long delay) {
+        Assert.assertTrue(delay + " not in [" + min + ", " + max + "]", delay >= min && delay <= max);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestQueueTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        RequestQueue requests = new RequestQueue(executor, 2);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<ListenableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int request = i;
+            results.add(requests.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                    }
+                    started.countDown();
+                    release.await();
+                    running.decrementAndGet();
+                    return request;
+                }
+            }));
+        }
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        // the requests beyond the limit wait in the queue, not on a thread
+        Assert.assertEquals(3, requests.size());
+        Assert.assertTrue(((ThreadPoolExecutor) executor).getPoolSize() <= 2);
+
+        release.countDown();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i, (int) results.get(i).get(10, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(2, maxRunning.get());
+        Assert.assertEquals(0, requests.size());
+    }
+
+    @Test
+    public void testFailedAndCancelledRequests() throws Exception {
+        RequestQueue requests = new RequestQueue(executor, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        ListenableFuture<Void> failing = requests.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                calls.incrementAndGet();
+                release.await();
+                throw new IllegalStateException("mocked failure");
+            }
+        });
+        Callable<Void> counted = new Callable<Void>() {
+            @Override
+            public Void call() {
+                calls.incrementAndGet();
+                return null;
+            }
+        };
+        ListenableFuture<Void> cancelled = requests.submit(counted);
+        ListenableFuture<Void> next = requests.submit(counted);
+        cancelled.cancel(false);
+        release.countDown();
+
+        try {
+            failing.get(10, TimeUnit.SECONDS);
+            Assert.fail("the request should have failed");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // a failed request still hands over to the next one, a cancelled one is skipped
+        next.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(2, calls.get());
+    }
+}
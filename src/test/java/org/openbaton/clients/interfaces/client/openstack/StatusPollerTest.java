@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatusPollerTest {
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSlowListingDoesNotBlockTheScheduler() throws Exception {
+        final CountDownLatch listing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        StatusPoller poller = new StatusPoller("slow", scheduler, executor, new PollSchedule(10, 10, 5), 0, 5) {
+            @Override
+            protected Iterator<Server> listChangedSince(Date since) throws Exception {
+                listing.countDown();
+                release.await();
+                return Collections.<Server>emptyList().iterator();
+            }
+
+            @Override
+            protected Server get(String serverId) throws Exception {
+                return null;
+            }
+        };
+        ListenableFuture<Server> deleted = poller.awaitDeletion("server_id", null);
+        Assert.assertTrue(listing.await(10, TimeUnit.SECONDS));
+
+        final CountDownLatch timer = new CountDownLatch(1);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                timer.countDown();
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(timer.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(deleted.isDone());
+
+        release.countDown();
+        Assert.assertNull(deleted.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelOnlyDetachesItsCaller() throws Exception {
+        final Server active = mock(Server.class);
+        when(active.getStatus()).thenReturn(Server.Status.ACTIVE);
+        final AtomicBoolean gone = new AtomicBoolean();
+        final CountDownLatch fetched = new CountDownLatch(3);
+        StatusPoller poller = new StatusPoller("shared", scheduler, executor, new PollSchedule(10, 10, 5), 0, 0) {
+            @Override
+            protected Iterator<Server> listChangedSince(Date since) throws Exception {
+                return Collections.<Server>emptyList().iterator();
+            }
+
+            @Override
+            protected Server get(String serverId) throws Exception {
+                fetched.countDown();
+                return gone.get() ? null : active;
+            }
+        };
+        ListenableFuture<Server> first = poller.awaitDeletion("server_id", null);
+        ListenableFuture<Server> second = poller.awaitDeletion("server_id", null);
+        Assert.assertNotSame(first, second);
+
+        // the first caller gives up, the second keeps waiting and the VM is still polled
+        first.cancel(false);
+        Assert.assertTrue(fetched.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(second.isDone());
+
+        gone.set(true);
+        Assert.assertNull(second.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailedFetchDoesNotSkipTheOthers() throws Exception {
+        StatusPoller poller = new StatusPoller("flaky", scheduler, executor, new PollSchedule(10, 10, 5), 0, 0) {
+            @Override
+            protected Iterator<Server> listChangedSince(Date since) throws Exception {
+                return Collections.<Server>emptyList().iterator();
+            }
+
+            @Override
+            protected Server get(String serverId) throws Exception {
+                if (serverId.equals("failing_id")) {
+                    throw new IllegalStateException("mocked failure");
+                }
+                return null;
+            }
+        };
+        ListenableFuture<Server> failing = poller.awaitDeletion("failing_id", null);
+        List<ListenableFuture<Server>> deleted = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            deleted.add(poller.awaitDeletion("server_id_" + i, null));
+        }
+
+        for (ListenableFuture<Server> future : deleted) {
+            Assert.assertNull(future.get(10, TimeUnit.SECONDS));
+        }
+        Assert.assertFalse(failing.isDone());
+        failing.cancel(false);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015 Fraunhofer FOKUS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openbaton.clients.interfaces.client.openstack;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.openbaton.exceptions.VimDriverException;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class StripedLocksTest {
+
+    private StripedLocks locks;
+
+    @Before
+    public void init() {
+        locks = new StripedLocks(64, 100);
+    }
+
+    @Test
+    public void testLockAndRelease() throws VimDriverException {
+        locks.lock("vim|pool").release();
+        // a released lock can be acquired again by the same thread
+        locks.lock("vim|pool").release();
+
+        Map<String, Long> metrics = locks.metrics();
+        Assert.assertEquals(2L, (long) metrics.get("acquired"));
+        Assert.assertEquals(0L, (long) metrics.get("timed-out"));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final StripedLocks.Held held = locks.lock("vim|pool");
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    locks.lock("vim|pool").release();
+                } catch (VimDriverException e) {
+                    failure.set(e);
+                }
+            }
+        });
+        waiter.start();
+        waiter.join(10000);
+        held.release();
+
+        Assert.assertTrue(failure.get() instanceof VimDriverException);
+        Map<String, Long> metrics = locks.metrics();
+        Assert.assertEquals(1L, (long) metrics.get("acquired"));
+        Assert.assertEquals(1L, (long) metrics.get("timed-out"));
+        Assert.assertTrue(metrics.get("max-hold-time") >= 100);
+        Assert.assertTrue(metrics.get("hold-time") >= metrics.get("max-hold-time"));
+    }
+
+    @Test
+    public void testWaitTime() throws Exception {
+        final CountDownLatch locked = new CountDownLatch(1);
+        Thread holder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    StripedLocks.Held held = locks.lock("vim|pool");
+                    locked.countDown();
+                    Thread.sleep(30);
+                    held.release();
+                } catch (VimDriverException | InterruptedException ignored) {
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        // waits for the other thread to release the lock, within the timeout
+        locks.lock("vim|pool").release();
+        holder.join(10000);
+
+        Map<String, Long> metrics = locks.metrics();
+        Assert.assertEquals(2L, (long) metrics.get("acquired"));
+        Assert.assertEquals(0L, (long) metrics.get("timed-out"));
+        Assert.assertTrue(metrics.get("max-wait-time") > 0);
+    }
+}
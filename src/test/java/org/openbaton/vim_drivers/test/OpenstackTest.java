@@ -19,6 +19,7 @@ package org.openbaton.vim_drivers.test;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.*;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import org.jclouds.ContextBuilder;
@@ -55,13 +56,17 @@ import org.jclouds.openstack.nova.v2_0.options.CreateServerOptions;
 import org.jclouds.openstack.v2_0.domain.Link;
 import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
 import org.jclouds.openstack.v2_0.domain.Resource;
+import org.jclouds.openstack.v2_0.options.PaginationOptions;
 import org.jclouds.rest.AuthorizationException;
 import org.junit.*;
 import org.junit.Rule;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.openbaton.catalogue.mano.common.DeploymentFlavour;
 import org.openbaton.catalogue.mano.descriptor.VirtualDeploymentUnit;
 import org.openbaton.catalogue.mano.record.VirtualNetworkFunctionRecord;
@@ -70,11 +75,15 @@ import org.openbaton.catalogue.nfvo.Network;
 import org.openbaton.catalogue.nfvo.Quota;
 import org.openbaton.catalogue.nfvo.Server;
 import org.openbaton.catalogue.nfvo.Subnet;
+import org.openbaton.clients.interfaces.client.openstack.BulkDeleteResult;
+import org.openbaton.clients.interfaces.client.openstack.BulkLaunchResult;
+import org.openbaton.clients.interfaces.client.openstack.InventoryChanges;
 import org.openbaton.clients.interfaces.client.openstack.OpenstackClient;
 import org.openbaton.exceptions.VimDriverException;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 import sun.net.www.protocol.http.*;
 import sun.net.www.protocol.http.HttpURLConnection;
 
@@ -82,6 +91,7 @@ import javax.naming.ldap.PagedResultsControl;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -208,10 +218,13 @@ public class OpenstackTest {
     private MyFloatingIP expFreeRealFloatingIP;
     private MyQuota expQuota;
     private MyPort expPort;
+    private Function<Credentials, Access> auth;
+    private NovaApi novaApi;
+    private ServerApi serverApi;
 
     @Before
     public void init() throws Exception {
-        openstackClient = spy(new OpenstackClient());
+        openstackClient = spy(newOpenstackClient(false));
         //doNothing().when(openstackClient).init();
 
         //pre-defined entities
@@ -258,7 +271,7 @@ public class OpenstackTest {
         serServerArray.add(expServer);
         //serServerArray.add(faultyServer);
         //serServerArray.add(errorServer);
-        FluentIterable<org.jclouds.openstack.nova.v2_0.domain.Server> serServerFI = FluentIterable.from(serServerArray);
+        final FluentIterable<org.jclouds.openstack.nova.v2_0.domain.Server> serServerFI = FluentIterable.from(serServerArray);
 
         //Port
         expPort = new MyPort("mocked_port_ext_id", NetworkStatus.ACTIVE, VIFType._802_QBG, ImmutableMap.copyOf(new HashMap<String, Object>()), "mocked_qos_queue_id", "mocked_name", "mocked_network_ext_id", true, "mocked_mac_address", ImmutableSet.copyOf(new HashSet<IP>()), "mocked_device_id", "mocked_device_owner", "mocked_tenant_id", ImmutableSet.copyOf(new HashSet<String>()), ImmutableSet.copyOf(new HashSet<AddressPair>()), ImmutableSet.copyOf(new HashSet<ExtraDhcpOption>()), VNICType.NORMAL, "mocked_host_id", ImmutableMap.copyOf(new HashMap<String, Object>()), false, "mocked_profile_id", false, 0);
@@ -301,7 +314,7 @@ public class OpenstackTest {
         //Neutron API
         NeutronApi neutronApi = mock(NeutronApi.class);
         //Nova API
-        NovaApi novaApi = mock(NovaApi.class);
+        novaApi = mock(NovaApi.class);
         //Glance API
         GlanceApi glanceApi = mock(GlanceApi.class);
 
@@ -325,16 +338,26 @@ public class OpenstackTest {
         when(novaApi.getConfiguredRegions()).thenReturn(zones);
 
         //ServerApi
-        ServerApi serverApi = mock(ServerApi.class);
+        serverApi = mock(ServerApi.class);
         when(novaApi.getServerApi(anyString())).thenReturn(serverApi);
         when(serverApi.get(definedServer.getExtId())).thenReturn(expServer);
-        when(serverApi.get("not_existing_server_ext_id")).thenThrow(new NullPointerException());
+        when(serverApi.get("not_existing_server_ext_id")).thenReturn(null);
+        when(serverApi.get("deleted_server_ext_id")).thenReturn(expServer, (org.jclouds.openstack.nova.v2_0.domain.Server) null);
         when(serverApi.get("faulty_server_mocked_ext_id")).thenReturn(faultyServer);
         when(serverApi.get("error_server_mocked_ext_id")).thenReturn(errorServer);
         when(serverApi.list()).thenReturn(mock(PagedIterable.class));
         when(serverApi.list().concat()).thenReturn(resServerFI);
         when(serverApi.listInDetail()).thenReturn(mock(PagedIterable.class));
         when(serverApi.listInDetail().concat()).thenReturn(serServerFI);
+        PaginatedCollection<org.jclouds.openstack.nova.v2_0.domain.Server> serverPage = mock(PaginatedCollection.class);
+        when(serverPage.iterator()).thenAnswer(new Answer<Iterator<org.jclouds.openstack.nova.v2_0.domain.Server>>() {
+            @Override
+            public Iterator<org.jclouds.openstack.nova.v2_0.domain.Server> answer(InvocationOnMock invocation) {
+                return serServerFI.iterator();
+            }
+        });
+        when(serverPage.nextMarker()).thenReturn(Optional.absent());
+        when(serverApi.listInDetail(any(PaginationOptions.class))).thenReturn(serverPage);
         when(serverCreated.getId()).thenReturn(definedServer.getExtId());
         when(faultyServerCreated.getId()).thenReturn("faulty_server_mocked_ext_id");
         when(errorServerCreated.getId()).thenReturn("error_server_mocked_ext_id");
@@ -353,9 +376,11 @@ public class OpenstackTest {
         when(novaImageApi.get(definedImage.getExtId())).thenReturn(expImage);
         when(novaImageApi.get("error_image_ext_id")).thenThrow(new AuthorizationException());
         when(novaImageApi.get("not_existing_image_ext_id")).thenThrow(new NullPointerException());
+        when(novaImageApi.listInDetail()).thenReturn(mock(PagedIterable.class));
+        when(novaImageApi.listInDetail().concat()).thenReturn(FluentIterable.from(Arrays.<Image>asList(expImage)));
         ImageApi imageApi = mock(ImageApi.class);
         when(novaApi.getImageApi(anyString())).thenReturn(novaImageApi);
-        List<ImageDetails> imageDetailsArray = new ArrayList<ImageDetails>();
+        final List<ImageDetails> imageDetailsArray = new ArrayList<ImageDetails>();
         imageDetailsArray.add(imageDetails);
         FluentIterable<ImageDetails> imaImageFI = FluentIterable.from(imageDetailsArray);
         when(glanceApi.getImageApi(anyString())).thenReturn(imageApi);
@@ -366,8 +391,15 @@ public class OpenstackTest {
         when(imageApi.list().concat()).thenReturn(resImageFI);
         when(imageApi.listInDetail()).thenReturn(mock(PagedIterable.class));
         when(imageApi.listInDetail().concat()).thenReturn(imaImageFI);
-        PaginatedCollection imagesPaginatedCollection = mock(PaginatedCollection.class);
-        when(imageApi.listInDetail(any(ListImageOptions.class))).thenReturn(mock(PaginatedCollection.class));
+        final PaginatedCollection<ImageDetails> imagesPaginatedCollection = mock(PaginatedCollection.class);
+        when(imagesPaginatedCollection.iterator()).thenAnswer(new Answer<Iterator<ImageDetails>>() {
+            @Override
+            public Iterator<ImageDetails> answer(InvocationOnMock invocation) {
+                return imageDetailsArray.iterator();
+            }
+        });
+        when(imagesPaginatedCollection.nextMarker()).thenReturn(Optional.absent());
+        when(imageApi.listInDetail(any(ListImageOptions.class))).thenReturn(imagesPaginatedCollection);
         ImmutableList imageImmutableList = ImmutableList.copyOf(imageDetailsArray);
 //        when(imageApi.listInDetail(any(ListImageOptions.class)).toList()).thenReturn(imageImmutableList);
         when(imageApi.create(eq(definedImage.getName()), any(Payload.class), any(CreateImageOptions.class))).thenReturn(imageDetails);
@@ -488,6 +520,9 @@ public class OpenstackTest {
         when(subnet.getName()).thenReturn(definedSubnet.getName());
         when(subnet.getId()).thenReturn(definedSubnet.getExtId());
         when(subnet.getCidr()).thenReturn(definedSubnet.getCidr());
+        when(subnet.getNetworkId()).thenReturn(definedNetwork.getExtId());
+        when(subnetApi.list()).thenReturn(mock(PagedIterable.class));
+        when(subnetApi.list().concat()).thenReturn(FluentIterable.from(Arrays.asList(subnet)));
 
         //FloatingIPApi
         FloatingIPApi floatingIPApi = mock(FloatingIPApi.class);
@@ -509,7 +544,7 @@ public class OpenstackTest {
         when(computeServiceContext.utils()).thenReturn(utils);
         Injector injector = mock(Injector.class);
         when(utils.injector()).thenReturn(injector);
-        Function<Credentials, Access> auth = mock(Function.class);
+        auth = mock(Function.class);
         when(injector.getInstance(any(Key.class))).thenReturn(auth);
         Access access = mock(Access.class);
         when(auth.apply(any(Credentials.class))).thenReturn(access);
@@ -579,24 +614,237 @@ public class OpenstackTest {
         server = openstackClient.launchInstanceAndWait(vimInstance, definedServer.getName(), definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata");
     }
 
+    @Test
+    public void testLaunchInstanceAndWaitAsync() throws Exception {
+        ListenableFuture<Server> launched = openstackClient.launchInstanceAndWaitAsync(vimInstance, definedServer.getName(), definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata", null, null);
+        assertEqualsServers(definedServer, launched.get(60, TimeUnit.SECONDS));
+        ListenableFuture<List<Server>> servers = openstackClient.listServerAsync(vimInstance);
+        assertEqualsServers(definedServer, servers.get().get(0));
+    }
+
+    @Test
+    public void testLaunchTimeout() throws Exception {
+        MyServer buildingServer = new MyServer("building_server_ext_id", "building_server", new HashSet<Link>(), "building_server_ext_id", "mocked_tenant_id", "", definedServer.getUpdated(), definedServer.getCreated(), "", "mocked_ip4", "mocked_ip6", org.jclouds.openstack.nova.v2_0.domain.Server.Status.BUILD, expImage, expFlavor, "", "", mock(Multimap.class), new HashMap<String, String>(), null, mock(ServerExtendedAttributes.class), "", "");
+        ServerCreated buildingServerCreated = mock(ServerCreated.class);
+        when(buildingServerCreated.getId()).thenReturn("building_server_ext_id");
+        when(serverApi.create(eq("building_server"), anyString(), anyString(), any(CreateServerOptions.class))).thenReturn(buildingServerCreated);
+        when(serverApi.get("building_server_ext_id")).thenReturn(buildingServer);
+        Whitebox.setInternalState(openstackClient, "launchTimeout", 1L);
+        try {
+            openstackClient.launchInstanceAndWait(vimInstance, "building_server", definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata");
+            Assert.fail("the launch did not time out");
+        } catch (VimDriverException e) {
+            Assert.assertEquals("VM with hostname: building_server did not finish the launch after 1 seconds", e.getMessage());
+            Assert.assertEquals("building_server_ext_id", e.getServer().getExtId());
+        }
+    }
+
+    @Test
+    public void testDeleteTimeout() throws Exception {
+        Whitebox.setInternalState(openstackClient, "deleteTimeout", 1L);
+        BulkDeleteResult result = openstackClient.deleteServersByIdAndWait(vimInstance, Arrays.asList(definedServer.getExtId()));
+        Assert.assertFalse(result.isComplete());
+        Assert.assertEquals("VM with ExtId: " + definedServer.getExtId() + " was not deleted after 1 seconds", result.getFailures().get(definedServer.getExtId()).getMessage());
+    }
+
+    @Test
+    public void testLaunchInstancesAndWait() throws Exception {
+        final HttpURLConnection connection = mock(HttpURLConnection.class);
+        URL url = PowerMockito.mock(URL.class);
+        PowerMockito.whenNew(URL.class).withAnyArguments().thenReturn(url);
+        when(url.openConnection()).thenReturn(connection);
+        when(connection.getOutputStream()).thenReturn(mock(OutputStream.class));
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"reservation_id\": \"r-mocked\"}".getBytes()));
+
+        BulkLaunchResult result = openstackClient.launchInstancesAndWait(vimInstance, definedServer.getName(), definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata", 1, null, null);
+        Assert.assertTrue(result.isComplete());
+        Assert.assertEquals(1, result.getServers().size());
+        assertEqualsServers(definedServer, result.getServers().get(0));
+        verify(serverApi).rename(definedServer.getExtId(), definedServer.getName() + "-1");
+    }
+
+    @Test
+    public void testLaunchInstancesAndWaitByIndex() throws Exception {
+        final HttpURLConnection connection = mock(HttpURLConnection.class);
+        URL url = PowerMockito.mock(URL.class);
+        PowerMockito.whenNew(URL.class).withAnyArguments().thenReturn(url);
+        when(url.openConnection()).thenReturn(connection);
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        when(connection.getOutputStream()).thenReturn(request);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"reservation_id\": \"r-mocked\"}".getBytes()));
+        final List<org.jclouds.openstack.nova.v2_0.domain.Server> created = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            created.add(new MyServer("bulk_ext_id_" + i, "bulk-" + i, new HashSet<Link>(), "bulk_ext_id_" + i, "mocked_tenant_id", "", definedServer.getUpdated(), definedServer.getCreated(), "", "mocked_ip4", "mocked_ip6", org.jclouds.openstack.nova.v2_0.domain.Server.Status.ACTIVE, expImage, expFlavor, "", "", ArrayListMultimap.<String, Address>create(), new HashMap<String, String>(), null, mock(ServerExtendedAttributes.class), "", ""));
+        }
+        // nova lists bulk-10 before bulk-2
+        Collections.sort(created, new Comparator<org.jclouds.openstack.nova.v2_0.domain.Server>() {
+            @Override
+            public int compare(org.jclouds.openstack.nova.v2_0.domain.Server o1, org.jclouds.openstack.nova.v2_0.domain.Server o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        PaginatedCollection<org.jclouds.openstack.nova.v2_0.domain.Server> page = mock(PaginatedCollection.class);
+        when(page.iterator()).thenAnswer(new Answer<Iterator<org.jclouds.openstack.nova.v2_0.domain.Server>>() {
+            @Override
+            public Iterator<org.jclouds.openstack.nova.v2_0.domain.Server> answer(InvocationOnMock invocation) {
+                return created.iterator();
+            }
+        });
+        when(page.nextMarker()).thenReturn(Optional.absent());
+        when(serverApi.listInDetail(any(PaginationOptions.class))).thenReturn(page);
+
+        BulkLaunchResult result = openstackClient.launchInstancesAndWait(vimInstance, "bulk", definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata", 10, null, null);
+        Assert.assertTrue(result.isComplete());
+        for (int i = 1; i <= 10; i++) {
+            Assert.assertEquals("bulk_ext_id_" + i, result.getServers().get(i - 1).getExtId());
+        }
+        verify(serverApi, never()).rename(anyString(), anyString());
+        Assert.assertTrue(request.toString().contains("\"name\":\"bulk\""));
+        Assert.assertTrue(request.toString().contains("\"min_count\":10"));
+
+        exception.expect(VimDriverException.class);
+        openstackClient.launchInstancesAndWait(vimInstance, "bulk", definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata", 0, null, null);
+    }
+
+    @Test
+    public void testCoalescedLaunches() throws Exception {
+        final HttpURLConnection connection = mock(HttpURLConnection.class);
+        URL url = PowerMockito.mock(URL.class);
+        PowerMockito.whenNew(URL.class).withAnyArguments().thenReturn(url);
+        when(url.openConnection()).thenReturn(connection);
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        when(connection.getOutputStream()).thenReturn(request);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"reservation_id\": \"r-mocked\"}".getBytes()));
+        final List<org.jclouds.openstack.nova.v2_0.domain.Server> created = new ArrayList<>();
+        for (int i = 2; i >= 1; i--) {
+            MyServer server = new MyServer("coalesced_ext_id_" + i, "coalesced-" + i, new HashSet<Link>(), "coalesced_ext_id_" + i, "mocked_tenant_id", "", definedServer.getUpdated(), definedServer.getCreated(), "", "mocked_ip4", "mocked_ip6", org.jclouds.openstack.nova.v2_0.domain.Server.Status.ACTIVE, expImage, expFlavor, "", "", ArrayListMultimap.<String, Address>create(), new HashMap<String, String>(), null, mock(ServerExtendedAttributes.class), "", "");
+            created.add(server);
+            when(serverApi.get(server.getId())).thenReturn(server);
+        }
+        PaginatedCollection<org.jclouds.openstack.nova.v2_0.domain.Server> page = mock(PaginatedCollection.class);
+        when(page.iterator()).thenAnswer(new Answer<Iterator<org.jclouds.openstack.nova.v2_0.domain.Server>>() {
+            @Override
+            public Iterator<org.jclouds.openstack.nova.v2_0.domain.Server> answer(InvocationOnMock invocation) {
+                return created.iterator();
+            }
+        });
+        when(page.nextMarker()).thenReturn(Optional.absent());
+        when(serverApi.listInDetail(any(PaginationOptions.class))).thenReturn(page);
+        Whitebox.setInternalState(openstackClient, "launchCoalesceWindow", 60000L);
+        Whitebox.setInternalState(openstackClient, "launchCoalesceMaxBatch", 2);
+
+        List<Thread> launches = new ArrayList<>();
+        final Map<String, Server> launched = Collections.synchronizedMap(new HashMap<String, Server>());
+        for (final String name : Arrays.asList("coalesced-1", "coalesced-2", definedServer.getName())) {
+            Thread launch = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        launched.put(name, openstackClient.launchInstance(vimInstance, name, definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata"));
+                    } catch (VimDriverException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            launch.start();
+            launches.add(launch);
+        }
+        for (Thread launch : launches) {
+            launch.join(60000);
+        }
+        Assert.assertEquals("coalesced_ext_id_1", launched.get("coalesced-1").getExtId());
+        Assert.assertEquals("coalesced_ext_id_2", launched.get("coalesced-2").getExtId());
+        // a VM not named after an index is created on its own, with its own name
+        Assert.assertEquals(definedServer.getExtId(), launched.get(definedServer.getName()).getExtId());
+        verify(serverApi).create(eq(definedServer.getName()), anyString(), anyString(), any(CreateServerOptions.class));
+        verify(serverApi, never()).create(eq("coalesced-1"), anyString(), anyString(), any(CreateServerOptions.class));
+        verify(serverApi, never()).rename(anyString(), anyString());
+        Assert.assertTrue(request.toString().contains("\"name\":\"coalesced\""));
+        Assert.assertTrue(request.toString().contains("\"min_count\":2"));
+    }
+
     @Test
     public void testLauchInstanceAndWaitFloatingIp() throws Exception {
         final HttpURLConnection connection = mock(HttpURLConnection.class);
         URL url = PowerMockito.mock(URL.class);
         PowerMockito.whenNew(URL.class).withAnyArguments().thenReturn(url);
         when(url.openConnection()).thenReturn(connection);
-        OutputStream outs = mock(OutputStream.class);
-        when(connection.getOutputStream()).thenReturn(outs);
-        OutputStreamWriter outsw = new OutputStreamWriter(outs);
-        Quota quota_expected = createQuota();
-        String response = "";
-        InputStream is = new ByteArrayInputStream(response.getBytes());
-        when(connection.getInputStream()).thenReturn(is);
+        when(connection.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"floatingips\": [{\"id\": \"mocked_floating_ip_id\"}]}".getBytes()),
+                                                     new ByteArrayInputStream("{\"ports\": [{\"id\": \"mocked_port_id\"}]}".getBytes()),
+                                                     new ByteArrayInputStream("{}".getBytes()));
+
+        HashMap<String, String> fip = new HashMap<>();
+        fip.put("mocked_private_network_name", "10.0.0.5");
+        Server server = openstackClient.launchInstanceAndWait(vimInstance, definedServer.getName(), definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata", fip, new HashSet<org.openbaton.catalogue.security.Key>());
+        assertEqualsServers(definedServer, server);
+        Assert.assertEquals("10.0.0.5", server.getFloatingIps().get("mocked_private_network_name"));
+        // an explicit floating ip does not need a reservoir of free ones
+        Map<String, ?> reservoirs = Whitebox.getInternalState(OpenstackClient.class, "floatingIpReservoirs");
+        for (String key : reservoirs.keySet()) {
+            Assert.assertFalse(key.startsWith(vimInstance.getAuthUrl() + "|"));
+        }
+    }
+
+    @Test
+    public void testListFreeFloatingIpsOfPool() throws Exception {
+        Set<FloatingIP> floatingIps = new HashSet<>();
+        floatingIps.add(expFreeFloatingIP);
+        floatingIps.add(expUsedFloatingIP);
+        floatingIps.add(new MyFloatingIP("other_ext_id", "other_free_ip", null, null, "other_pool"));
+        FloatingIPApi floatingIPApi = novaApi.getFloatingIPApi("mocked_zone").get();
+        when(floatingIPApi.list()).thenReturn(FluentIterable.from(floatingIps));
+        when(novaApi.getFloatingIPApi(anyString()).isPresent()).thenReturn(true);
+        List<String> free = Whitebox.invokeMethod(openstackClient, "listFreeFloatingIps", vimInstance, "mocked_pool");
+        Assert.assertEquals(Arrays.asList("mocked_free_ip"), free);
+
+        // without the nova extension neutron filters the floating ips by the network of the pool
+        when(novaApi.getFloatingIPApi(anyString()).isPresent()).thenReturn(false);
+        final HttpURLConnection connection = mock(HttpURLConnection.class);
+        URL url = PowerMockito.mock(URL.class);
+        PowerMockito.whenNew(URL.class).withAnyArguments().thenReturn(url);
+        when(url.openConnection()).thenReturn(connection);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"networks\": [{\"id\": \"mocked_pool_network_id\"}]}".getBytes()),
+                                                     new ByteArrayInputStream(("{\"floatingips\": [{\"floating_ip_address\": \"10.0.0.5\", \"fixed_ip_address\": null}, " +
+                                                                               "{\"floating_ip_address\": \"10.0.0.6\", \"fixed_ip_address\": \"192.168.0.2\"}]}").getBytes()));
+        free = Whitebox.invokeMethod(openstackClient, "listFreeFloatingIps", vimInstance, "mocked_pool");
+        PowerMockito.verifyNew(URL.class).withArguments("http://mocked_URI/v2.0/networks.json?name=mocked_pool&fields=id");
+        PowerMockito.verifyNew(URL.class).withArguments("http://mocked_URI/v2.0/floatingips.json?floating_network_id=mocked_pool_network_id");
+        Assert.assertEquals(Arrays.asList("10.0.0.5"), free);
+    }
 
-//        HashMap<String, String> fip = new HashMap<>();
-//        fip.put("mocked_private_network_name", "0.0.0.0");
-//        Server server = openstackClient.launchInstanceAndWait(vimInstance, definedServer.getName(), definedServer.getImage().getExtId(), definedServer.getFlavor().getExtId(), "keypair", new HashSet<String>(), new HashSet<String>(), "#userdata", fip);
-//        assertEqualsServers(definedServer, server);
+    @Test
+    public void testAssociateFloatingIpWithNeutron() throws Exception {
+        final HttpURLConnection connection = mock(HttpURLConnection.class);
+        URL url = PowerMockito.mock(URL.class);
+        PowerMockito.whenNew(URL.class).withAnyArguments().thenReturn(url);
+        when(url.openConnection()).thenReturn(connection);
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        when(connection.getOutputStream()).thenReturn(request);
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"floatingips\": [{\"id\": \"mocked_floating_ip_id\"}]}".getBytes()),
+                                                     new ByteArrayInputStream("{\"ports\": [{\"id\": \"mocked_port_id\"}]}".getBytes()),
+                                                     new ByteArrayInputStream("{}".getBytes()));
+        Server server = createServer();
+        server.setFloatingIps(new HashMap<String, String>());
+        HashMap<String, String> fip = new HashMap<>();
+        fip.put("mocked_network", "10.0.0.5");
+
+        openstackClient.associateFloatingIpToNetwork(vimInstance, server, fip.entrySet().iterator().next());
+        // neutron filters the floating ips and ports, returning only their ids
+        PowerMockito.verifyNew(URL.class).withArguments("http://mocked_URI/v2.0/floatingips.json?floating_ip_address=10.0.0.5&fields=id");
+        PowerMockito.verifyNew(URL.class).withArguments("http://mocked_URI/v2.0/ports.json?fixed_ips=ip_address%3Dmocked_ip&device_id=" + server.getExtId() + "&fields=id");
+        PowerMockito.verifyNew(URL.class).withArguments("http://mocked_URI/v2.0/floatingips/mocked_floating_ip_id.json");
+        Assert.assertTrue(request.toString().contains("\"port_id\": \"mocked_port_id\""));
+        Assert.assertEquals("10.0.0.5", server.getFloatingIps().get("mocked_network"));
+
+        // a floating ip neutron does not know is not assigned
+        when(connection.getInputStream()).thenReturn(new ByteArrayInputStream("{\"floatingips\": []}".getBytes()));
+        request.reset();
+        server.getFloatingIps().clear();
+        fip.put("mocked_network", "10.0.0.6");
+        openstackClient.associateFloatingIpToNetwork(vimInstance, server, fip.entrySet().iterator().next());
+        Assert.assertEquals(0, request.size());
+        Assert.assertTrue(server.getFloatingIps().isEmpty());
     }
 
     @Test
@@ -624,10 +872,43 @@ public class OpenstackTest {
         List<Server> servers = openstackClient.listServer(vimInstance);
     }
 
+    @Test
+    public void testIterateServers() throws VimDriverException {
+        List<Server> servers = openstackClient.listServer(vimInstance);
+        Iterator<Server> iterator = openstackClient.iterateServers(vimInstance, null, null, true);
+        for (Server server : servers) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(server.getExtId(), iterator.next().getExtId());
+        }
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testSyncServers() throws VimDriverException {
+        List<Server> servers = openstackClient.listServer(vimInstance);
+        InventoryChanges<Server> changes = openstackClient.syncServers(vimInstance);
+        Assert.assertEquals(servers.size(), changes.getAdded().size());
+        Assert.assertEquals(servers.size(), changes.getSnapshot().size());
+        changes = openstackClient.syncServers(vimInstance);
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertEquals(servers.size(), changes.getSnapshot().size());
+        ArgumentCaptor<PaginationOptions> options = ArgumentCaptor.forClass(PaginationOptions.class);
+        verify(serverApi, atLeastOnce()).listInDetail(options.capture());
+        Collection<String> changesSince = options.getValue().buildQueryParameters().get("changes-since");
+        Assert.assertEquals(1, changesSince.size());
+        Assert.assertTrue(changesSince.iterator().next().matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}Z"));
+    }
+
     @Test
     public void deleteServerByIdAndWait() throws Exception {
         //doThrow(new NullPointerException()).when(openstackClient);
         openstackClient.deleteServerByIdAndWait(vimInstance, "not_existing_server_ext_id");
+        openstackClient.deleteServerByIdAndWait(vimInstance, "deleted_server_ext_id");
+        Assert.assertTrue(openstackClient.getPollMetrics().get("get-polls") > 0);
+        Assert.assertTrue(openstackClient.getPollMetrics().get("delete-completed") > 0);
+        BulkDeleteResult result = openstackClient.deleteServersByIdAndWait(vimInstance, Arrays.asList("not_existing_server_ext_id", "another_not_existing_server_ext_id"));
+        Assert.assertTrue(result.isComplete());
+        Assert.assertEquals(2, result.getDeleted().size());
         PowerMockito.mockStatic(Thread.class);
         PowerMockito.doThrow(new InterruptedException("tirggered InterruptedException")).when(Thread.class, "sleep", (long) 1000);
         //PowerMockito.doThrow(new InterruptedException("tirggered InterruptedException")).when(Thread.class);
@@ -639,6 +920,23 @@ public class OpenstackTest {
 
     }
 
+    @Test
+    public void testDeleteVolumeBootedServer() throws Exception {
+        MyServer volumeServer = new MyServer("volume_server_ext_id", "volume_server", new HashSet<Link>(), "volume_server_ext_id", "mocked_tenant_id", "", definedServer.getUpdated(), definedServer.getCreated(), "", "mocked_ip4", "mocked_ip6", org.jclouds.openstack.nova.v2_0.domain.Server.Status.ACTIVE, null, expFlavor, "", "", mock(Multimap.class), new HashMap<String, String>(), null, mock(ServerExtendedAttributes.class), "", "");
+        when(serverApi.get("volume_server_ext_id")).thenReturn(volumeServer, (org.jclouds.openstack.nova.v2_0.domain.Server) null);
+        when(serverApi.delete("volume_server_ext_id")).thenReturn(true);
+        openstackClient.deleteServerByIdAndWait(vimInstance, "volume_server_ext_id");
+        verify(serverApi).delete("volume_server_ext_id");
+    }
+
+    @Test
+    public void testProbeServer() throws Exception {
+        openstackClient.deleteServerByIdAndWait(vimInstance, "deleted_server_ext_id");
+        verify(serverApi, atLeast(2)).get("deleted_server_ext_id");
+        verify(novaApi.getFlavorApi("mocked_zone"), never()).get(anyString());
+        verify(novaApi.getImageApi("mocked_zone"), never()).get(anyString());
+    }
+
     @Test
     public void testRebootServer() throws VimDriverException {
         openstackClient.rebootServer(vimInstance, definedServer.getExtId(), RebootType.SOFT);
@@ -775,6 +1073,54 @@ public class OpenstackTest {
 
     }
 
+    @Test
+    public void testGetAllocated() throws Exception {
+        when(novaApi.getFloatingIPApi(anyString()).isPresent()).thenReturn(true);
+        List<String> allocated = openstackClient.get_allocated(vimInstance, "mocked_pool", 3);
+        Assert.assertEquals(Arrays.asList("mocked_free_ip", "mocked_free_ip", "mocked_free_ip"), allocated);
+        FloatingIPApi floatingIPApi = novaApi.getFloatingIPApi("mocked_zone").get();
+        when(floatingIPApi.allocateFromPool("exhausted_pool")).thenReturn(null);
+        Assert.assertTrue(openstackClient.get_allocated(vimInstance, "exhausted_pool", 3).isEmpty());
+    }
+
+    @Test
+    public void testPooledContexts() throws Exception {
+        openstackClient = spy(newOpenstackClient(true));
+        openstackClient.listFlavors(vimInstance);
+        openstackClient.listFlavors(vimInstance);
+        PowerMockito.verifyStatic(times(1));
+        ContextBuilder.newBuilder("openstack-nova");
+        vimInstance.setPassword("changed_mocked_password");
+        openstackClient.listFlavors(vimInstance);
+        PowerMockito.verifyStatic(times(2));
+        ContextBuilder.newBuilder("openstack-nova");
+    }
+
+    @Test
+    public void testCachedZone() throws Exception {
+        Location location = new Location();
+        location.setName("mocked_zone");
+        vimInstance.setLocation(location);
+        openstackClient.listServer(vimInstance);
+        openstackClient.listServer(vimInstance);
+        verify(novaApi, times(1)).getConfiguredRegions();
+        vimInstance.getLocation().setName("other_location");
+        openstackClient.listServer(vimInstance);
+        verify(novaApi, times(2)).getConfiguredRegions();
+    }
+
+    @Test
+    public void testCachedInventory() throws Exception {
+        openstackClient = spy(newOpenstackClient(true));
+        long misses = openstackClient.getInventoryCacheStats().get("flavors").missCount();
+        openstackClient.listFlavors(vimInstance);
+        openstackClient.listFlavors(vimInstance);
+        Assert.assertEquals(misses + 1, openstackClient.getInventoryCacheStats().get("flavors").missCount());
+        openstackClient.addFlavor(vimInstance, definedFlavor);
+        openstackClient.listFlavors(vimInstance);
+        Assert.assertEquals(misses + 2, openstackClient.getInventoryCacheStats().get("flavors").missCount());
+    }
+
     @Test
     public void testDeleteFlavor() throws VimDriverException {
         openstackClient.deleteFlavor(vimInstance, definedFlavor.getExtId());
@@ -984,10 +1330,42 @@ public class OpenstackTest {
         assertEqualsQuotas(definedQuota, quota_actual);
     }
 
+    @Test
+    public void testSharedAccess() throws VimDriverException {
+        Assert.assertEquals("mocked_tenant_id", openstackClient.getTenantId(vimInstance));
+        Assert.assertEquals("mocked_tenant_id", openstackClient.getTenantId(vimInstance));
+        verify(auth, times(1)).apply(any(Credentials.class));
+        vimInstance.setPassword("changed_mocked_password");
+        openstackClient.getTenantId(vimInstance);
+        verify(auth, times(2)).apply(any(Credentials.class));
+    }
+
+    /**
+     * Returns a client with its own shared registries. Unless pooled, they neither pool the jclouds contexts nor cache
+     * the inventory, so that the apis stubbed within a test are used right away.
+     */
+    private OpenstackClient newOpenstackClient(boolean pooled) throws Exception {
+        OpenstackClient client = new OpenstackClient();
+        Whitebox.invokeMethod(OpenstackClient.class, "reset");
+        Properties properties = Whitebox.getInternalState(client, "properties");
+        for (String property : Arrays.asList("context-idle-timeout", "image-cache-ttl", "flavor-cache-ttl")) {
+            if (pooled) {
+                properties.remove(property);
+            } else {
+                properties.setProperty(property, "0");
+            }
+        }
+        client.init();
+        return client;
+    }
+
     private VimInstance createVimInstance() {
         VimInstance vimInstance = new VimInstance();
         vimInstance.setName("mocked_vim_instance");
         vimInstance.setTenant("mocked_tenant");
+        //jclouds contexts are pooled per auth url, so every test gets its own
+        vimInstance.setAuthUrl("http://mocked_auth_url/" + UUID.randomUUID());
+        vimInstance.setPassword("mocked_password");
         return vimInstance;
     }
 